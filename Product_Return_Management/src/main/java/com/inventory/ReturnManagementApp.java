@@ -1,16 +1,102 @@
 package com.inventory;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Scanner;
 
+import com.inventory.analytics.GroupCount;
+import com.inventory.analytics.ReturnHeavyHitters;
+import com.inventory.analytics.ReturnsSnapshot;
+import com.inventory.repository.Storage;
+import com.inventory.server.ReturnHttpServer;
+import com.inventory.service.InventoryLogService;
+import com.inventory.service.ReturnExportService;
+import com.inventory.service.ReturnImportService;
+import com.inventory.service.ReturnIntakeJournal;
+import com.inventory.service.ReturnRateMonitor;
 import com.inventory.service.ReturnService;
+import com.inventory.service.StockLedger;
+import com.inventory.service.StockWriteBehind;
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.SchemaMigrator;
 
 public class ReturnManagementApp {
     private static ReturnService returnService;
     private static Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) throws SQLException {
+        if (Storage.isInMemory()) {
+            System.out.println("Using in-memory storage: " + Storage.getEngine());
+        } else {
+            try {
+                new SchemaMigrator().migrate();
+            } catch (SQLException e) {
+                System.out.println("Error migrating database schema: " + e.getMessage());
+                DatabaseConnection.shutdown();
+                return;
+            }
+        }
         returnService = new ReturnService();
+        if (StockLedger.isEnabled()) {
+            System.out.println("Stock ledger loaded " + StockLedger.getInstance().size() + " products");
+        }
+        if (ReturnRateMonitor.isEnabled()) {
+            ReturnRateMonitor monitor = ReturnRateMonitor.getInstance();
+            System.out.println("Return rate monitor loaded " + monitor.size() + " customers (over "
+                    + monitor.getMaxReturns() + " returns in " + monitor.getWindowDays() + " days goes to manual review)");
+        }
+        if (ReturnIntakeJournal.isEnabled()) {
+            // Opening the journal starts replaying anything a previous run accepted but had not applied yet
+            ReturnIntakeJournal journal = ReturnIntakeJournal.getInstance();
+            if (journal.getLastSequence() > 0) {
+                System.out.println("Intake journal open at sequence " + journal.getLastSequence());
+            }
+        }
+
+        if (args.length >= 2 && args[0].equals("--import")) {
+            runImport(Paths.get(args[1]));
+            return;
+        }
+        if (args.length >= 1 && isDatabaseOnly(args[0]) && Storage.isInMemory()) {
+            System.out.println(args[0] + " reads the database directly and needs -Dstorage.engine=jdbc");
+            return;
+        }
+        if (args.length >= 2 && args[0].equals("--export")) {
+            LocalDate from = args.length >= 3 ? LocalDate.parse(args[2]) : LocalDate.now().minusMonths(1);
+            LocalDate to = args.length >= 4 ? LocalDate.parse(args[3]) : LocalDate.now().plusDays(1);
+            exportReturns(from.atStartOfDay(), to.atStartOfDay(), Paths.get(args[1]));
+            DatabaseConnection.shutdown();
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--serve")) {
+            runServer(args.length >= 2 ? Integer.parseInt(args[1]) : Integer.getInteger("server.port", 8080));
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--analytics")) {
+            runAnalytics(args.length >= 2 ? Integer.parseInt(args[1]) : 90);
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--rebuild-rollups")) {
+            returnService.rebuildRollups();
+            DatabaseConnection.shutdown();
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--compact-inventory-log")) {
+            compactInventoryLog();
+            DatabaseConnection.shutdown();
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--check-rollups")) {
+            boolean consistent = returnService.checkRollups();
+            DatabaseConnection.shutdown();
+            System.exit(consistent ? 0 : 1);
+        }
         
         while (true) {
             displayMenu();
@@ -19,6 +105,98 @@ public class ReturnManagementApp {
         }
     }
 
+    private static boolean isDatabaseOnly(String option) {
+        return option.equals("--export") || option.equals("--analytics")
+                || option.equals("--rebuild-rollups") || option.equals("--check-rollups")
+                || option.equals("--compact-inventory-log");
+    }
+
+    private static void runImport(Path source) {
+        int batchSize = Integer.getInteger("import.batchSize", 1000);
+        Path rejectFile = Paths.get(source.toString() + ".rejected.csv");
+        try {
+            ReturnImportService importService = new ReturnImportService(returnService, batchSize);
+            ReturnImportService.ImportSummary summary = importService.importFile(source, rejectFile);
+            System.out.println(summary);
+            if (summary.getRejected() > 0) {
+                System.out.println("Rejected rows written to " + rejectFile);
+            }
+        } catch (IOException e) {
+            System.out.println("Error importing returns: " + e.getMessage());
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+
+    // Exports returns created in [from, to) to CSV, gzip-compressed when the file name ends in .gz
+    private static void exportReturns(LocalDateTime from, LocalDateTime to, Path target) {
+        try {
+            System.out.println(new ReturnExportService().export(from, to, target));
+            System.out.println("Returns written to " + target);
+        } catch (IOException | SQLException e) {
+            System.out.println("Error exporting returns: " + e.getMessage());
+        }
+    }
+
+    // Serves until the process is stopped; the shutdown hook drains in-flight requests and pending stock writes
+    private static void runServer(int port) {
+        int threads = Integer.getInteger("server.threads", DatabaseConnection.getPool().getMaxSize() * 2);
+        try {
+            ReturnHttpServer server = new ReturnHttpServer(returnService, new InetSocketAddress(port), threads);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                InventoryLogService.stopScheduledCompaction();
+                ReturnIntakeJournal.shutdownInstance();
+                StockWriteBehind.shutdownInstance();
+                DatabaseConnection.shutdown();
+            }, "http-server-shutdown"));
+            server.start();
+            InventoryLogService.startScheduledCompaction();
+            System.out.println("Returns server listening on port " + server.getPort()
+                    + (server.isUsingVirtualThreads() ? " (virtual threads)" : " (" + threads + " worker threads)"));
+        } catch (IOException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+            DatabaseConnection.shutdown();
+        }
+    }
+
+    // Rolls inventory_log rows past the retention period into daily summaries
+    private static void compactInventoryLog() {
+        InventoryLogService inventoryLogService = new InventoryLogService();
+        System.out.println("Compacting inventory log rows before " + inventoryLogService.getCutoff());
+        try {
+            System.out.println(inventoryLogService.compact());
+        } catch (SQLException e) {
+            System.out.println("Error compacting inventory log: " + e.getMessage());
+        }
+    }
+
+    // Loads the returns snapshot and prints the most returned product/reason pairs over the last N days
+    private static void runAnalytics(int days) {
+        try {
+            ReturnsSnapshot snapshot = ReturnsSnapshot.getInstance();
+            long start = System.nanoTime();
+            snapshot.refresh();
+            long loaded = System.nanoTime();
+            List<GroupCount> groups = snapshot.query()
+                    .createdWithinDays(days)
+                    .groupBy(ReturnsSnapshot.Dimension.PRODUCT, ReturnsSnapshot.Dimension.REASON)
+                    .run(20);
+            long scanned = System.nanoTime();
+            System.out.printf("Loaded %d returns (%d KB off-heap) in %d ms, scanned in %d ms%n",
+                    snapshot.getRowCount(), snapshot.getOffHeapBytes() / 1024,
+                    (loaded - start) / 1_000_000, (scanned - loaded) / 1_000_000);
+            System.out.println("Top product / reason over the last " + days + " days:");
+            for (GroupCount group : groups) {
+                System.out.println("  Product " + group);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error loading returns snapshot: " + e.getMessage());
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+
     private static void displayMenu() {
         System.out.println("\n1. Process New Return");
         System.out.println("2. View Return Status");
@@ -40,6 +218,9 @@ public class ReturnManagementApp {
                 break;
             case 4:
                 System.out.println("Thank you for using Returns Management System!");
+                ReturnIntakeJournal.shutdownInstance();
+                StockWriteBehind.shutdownInstance();
+                DatabaseConnection.shutdown();
                 System.exit(0);
             default:
                 System.out.println("Invalid choice! Please select 1-4");
@@ -59,7 +240,7 @@ public class ReturnManagementApp {
         System.out.print("Enter Product Condition (Good/Damaged): ");
         String condition = scanner.nextLine();
 
-        returnService.processNewReturn(orderId,  customerId, productId, reason, condition);
+        returnService.processNewReturn(customerId, productId, orderId, reason, condition);
     }
 
     private static void viewReturnStatus() {
@@ -74,9 +255,34 @@ public class ReturnManagementApp {
         System.out.println("1. Daily Report");
         System.out.println("2. Weekly Report");
         System.out.println("3. Monthly Report");
+        System.out.println("4. Most Returned Products and Reasons");
+        System.out.println("5. Export Returns to CSV");
         System.out.print("Choose report type: ");
         int choice = scanner.nextInt();
-        
+
+        if (choice == 4) {
+            System.out.println("1. Last Hour");
+            System.out.println("2. Last Day");
+            System.out.println("3. Last Week");
+            System.out.print("Choose window: ");
+            int window = scanner.nextInt();
+            returnService.generateTopReturnsReport(window == 1 ? ReturnHeavyHitters.Window.LAST_HOUR
+                    : window == 2 ? ReturnHeavyHitters.Window.LAST_DAY : ReturnHeavyHitters.Window.LAST_WEEK, 10);
+            return;
+        }
+        if (choice == 5 && Storage.isInMemory()) {
+            System.out.println("Export reads the database directly and needs -Dstorage.engine=jdbc");
+            return;
+        }
+        if (choice == 5) {
+            System.out.print("Export returns from the last how many days: ");
+            int days = scanner.nextInt();
+            scanner.nextLine();
+            System.out.print("Enter output file (.csv or .csv.gz): ");
+            String file = scanner.nextLine().trim();
+            exportReturns(LocalDateTime.now().minusDays(days), LocalDateTime.now().plusSeconds(1), Paths.get(file));
+            return;
+        }
         returnService.generateReport(choice);
     }
 }
\ No newline at end of file
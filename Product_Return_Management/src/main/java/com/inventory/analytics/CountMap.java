@@ -0,0 +1,74 @@
+package com.inventory.analytics;
+
+// long -> count map with open addressing, so grouping a scan does not box a key per row
+class CountMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    interface Visitor {
+        void visit(long key, long count);
+    }
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+
+    CountMap() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        java.util.Arrays.fill(keys, EMPTY);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    void add(long key, long count) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            if (++size > keys.length / 2) {
+                counts[i] = count;
+                rehash();
+                return;
+            }
+        }
+        counts[i] += count;
+    }
+
+    void addAll(CountMap other) {
+        other.forEach(this::add);
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], counts[i]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.inventory.analytics;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class GroupCount {
+    private final List<String> labels;
+    private final long count;
+
+    GroupCount(String[] labels, long count) {
+        this.labels = Arrays.asList(labels);
+        this.count = count;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" / ", labels) + ": " + count;
+    }
+}
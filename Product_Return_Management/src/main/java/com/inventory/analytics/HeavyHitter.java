@@ -0,0 +1,32 @@
+package com.inventory.analytics;
+
+public class HeavyHitter {
+    private final String key;
+    private final long count;
+    private final long error;
+
+    HeavyHitter(String key, long count, long error) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    // Estimated count; never below the true count for keys that stayed tracked
+    public long getCount() {
+        return count;
+    }
+
+    // Upper bound on how much of the count may belong to keys this one displaced
+    public long getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return error == 0 ? key + ": " + count : key + ": " + count + " (+/-" + error + ")";
+    }
+}
@@ -0,0 +1,69 @@
+package com.inventory.analytics;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Most returned products and most common reasons over the last hour, day and week, counted in memory as
+// returns are accepted. Memory is bounded by heavyHitters.capacity counters per bucket; counts cover
+// this process only and start empty after a restart.
+public class ReturnHeavyHitters {
+    private static final int CAPACITY = Integer.getInteger("heavyHitters.capacity", 200);
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private static final ReturnHeavyHitters INSTANCE = new ReturnHeavyHitters(CAPACITY);
+
+    public enum Window {
+        LAST_HOUR(12, 5 * MINUTE_MILLIS),
+        LAST_DAY(24, 60 * MINUTE_MILLIS),
+        LAST_WEEK(28, 6 * 60 * MINUTE_MILLIS);
+
+        private final int buckets;
+        private final long bucketMillis;
+
+        Window(int buckets, long bucketMillis) {
+            this.buckets = buckets;
+            this.bucketMillis = bucketMillis;
+        }
+    }
+
+    private final Map<Window, WindowedTopK> products = new EnumMap<>(Window.class);
+    private final Map<Window, WindowedTopK> reasons = new EnumMap<>(Window.class);
+
+    public ReturnHeavyHitters(int capacity) {
+        for (Window window : Window.values()) {
+            products.put(window, new WindowedTopK(window.buckets, window.bucketMillis, capacity));
+            reasons.put(window, new WindowedTopK(window.buckets, window.bucketMillis, capacity));
+        }
+    }
+
+    public static ReturnHeavyHitters getInstance() {
+        return INSTANCE;
+    }
+
+    public void record(String productId, String reason) {
+        long now = System.currentTimeMillis();
+        String product = productId == null ? null : productId.trim();
+        String trimmedReason = reason == null ? null : reason.trim();
+        for (Window window : Window.values()) {
+            if (product != null && !product.isEmpty()) {
+                products.get(window).offer(product, now);
+            }
+            if (trimmedReason != null && !trimmedReason.isEmpty()) {
+                reasons.get(window).offer(trimmedReason, now);
+            }
+        }
+    }
+
+    public void record(int productId, String reason) {
+        record(String.valueOf(productId), reason);
+    }
+
+    public List<HeavyHitter> topProducts(Window window, int n) {
+        return products.get(window).top(n, System.currentTimeMillis());
+    }
+
+    public List<HeavyHitter> topReasons(Window window, int n) {
+        return reasons.get(window).top(n, System.currentTimeMillis());
+    }
+}
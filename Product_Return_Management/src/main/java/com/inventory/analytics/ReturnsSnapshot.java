@@ -0,0 +1,330 @@
+package com.inventory.analytics;
+
+import com.inventory.model.ReturnStatus;
+import com.inventory.util.DatabaseConnection;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Column-oriented copy of the returns table held in direct (off-heap) buffers, for filter/group-by/count
+// scans that run across cores without touching MySQL. Rows arrive in return_id order and refresh only
+// fetches ids above the last one loaded, so later status changes are picked up by reload().
+public class ReturnsSnapshot {
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final int FETCH_SIZE = Integer.getInteger("analytics.fetchSize", 10000);
+    private static final long MAX_STALENESS_MILLIS = Long.getLong("analytics.maxStalenessMillis", 5000L);
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final ReturnStatus[] STATUSES = ReturnStatus.values();
+    private static final byte UNKNOWN_STATUS = -1;
+
+    private static final String LOAD_SQL = "SELECT return_id, customer_id, product_id, created_date, reason, product_condition, status "
+            + "FROM returns WHERE return_id > ? ORDER BY return_id";
+
+    private static final ReturnsSnapshot INSTANCE = new ReturnsSnapshot();
+
+    public enum Dimension {
+        PRODUCT,
+        CUSTOMER,
+        STATUS,
+        REASON,
+        CONDITION,
+        DAY
+    }
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int rowCount;
+    private volatile int lastReturnId;
+    private volatile long refreshedAt;
+    private volatile StringDictionary reasons = new StringDictionary();
+    private volatile StringDictionary conditions = new StringDictionary();
+
+    public static ReturnsSnapshot getInstance() {
+        return INSTANCE;
+    }
+
+    private static class Chunk {
+        private final IntBuffer customerIds = ints();
+        private final IntBuffer productIds = ints();
+        private final LongBuffer createdMillis = ByteBuffer.allocateDirect(CHUNK_ROWS * 8).asLongBuffer();
+        private final ByteBuffer statuses = ByteBuffer.allocateDirect(CHUNK_ROWS);
+        private final IntBuffer reasonCodes = ints();
+        private final IntBuffer conditionCodes = ints();
+
+        private static IntBuffer ints() {
+            return ByteBuffer.allocateDirect(CHUNK_ROWS * 4).asIntBuffer();
+        }
+
+        static long bytes() {
+            return CHUNK_ROWS * (4L * 4 + 8 + 1);
+        }
+    }
+
+    // Appends returns created since the last refresh; returns how many rows were added
+    public synchronized int refresh(Connection conn) throws SQLException {
+        int added = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(LOAD_SQL)) {
+            stmt.setFetchSize(FETCH_SIZE);
+            stmt.setInt(1, lastReturnId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Chunk[] current = chunks;
+                int rows = rowCount;
+                int lastId = lastReturnId;
+                while (rs.next()) {
+                    int chunkIndex = rows / CHUNK_ROWS;
+                    if (chunkIndex == current.length) {
+                        Chunk[] grown = new Chunk[current.length + 1];
+                        System.arraycopy(current, 0, grown, 0, current.length);
+                        grown[current.length] = new Chunk();
+                        current = grown;
+                        chunks = current;
+                    }
+                    Chunk chunk = current[chunkIndex];
+                    int row = rows % CHUNK_ROWS;
+                    Timestamp created = rs.getTimestamp(4);
+                    chunk.customerIds.put(row, rs.getInt(2));
+                    chunk.productIds.put(row, rs.getInt(3));
+                    chunk.createdMillis.put(row, created == null ? 0 : wallClockMillis(created.toLocalDateTime()));
+                    chunk.reasonCodes.put(row, reasons.encode(rs.getString(5)));
+                    chunk.conditionCodes.put(row, conditions.encode(rs.getString(6)));
+                    chunk.statuses.put(row, statusOrdinal(rs.getString(7)));
+                    lastId = rs.getInt(1);
+                    rows++;
+                    added++;
+                    // Publish in steps so a long initial load is already queryable while it runs
+                    if ((rows & (CHUNK_ROWS - 1)) == 0) {
+                        lastReturnId = lastId;
+                        rowCount = rows;
+                    }
+                }
+                lastReturnId = lastId;
+                rowCount = rows;
+            }
+        }
+        refreshedAt = System.currentTimeMillis();
+        return added;
+    }
+
+    public int refresh() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return refresh(conn);
+        }
+    }
+
+    // Refreshes only when the last refresh is older than analytics.maxStalenessMillis
+    public void refreshIfStale() throws SQLException {
+        if (System.currentTimeMillis() - refreshedAt > MAX_STALENESS_MILLIS) {
+            refresh();
+        }
+    }
+
+    // Drops everything and loads the table again, picking up status changes to rows already loaded
+    public synchronized int reload(Connection conn) throws SQLException {
+        chunks = new Chunk[0];
+        rowCount = 0;
+        lastReturnId = 0;
+        reasons = new StringDictionary();
+        conditions = new StringDictionary();
+        return refresh(conn);
+    }
+
+    private static byte statusOrdinal(String status) {
+        for (ReturnStatus candidate : STATUSES) {
+            if (candidate.name().equals(status)) {
+                return (byte) candidate.ordinal();
+            }
+        }
+        return UNKNOWN_STATUS;
+    }
+
+    // DATETIME columns carry no zone, so times are kept as wall-clock millis and DAY is a plain division
+    static long wallClockMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getLastReturnId() {
+        return lastReturnId;
+    }
+
+    public long getOffHeapBytes() {
+        return chunks.length * Chunk.bytes();
+    }
+
+    public Query query() {
+        return new Query();
+    }
+
+    public class Query {
+        private long fromMillis = Long.MIN_VALUE;
+        private long toMillis = Long.MAX_VALUE;
+        private int statusMask = -1;
+        private int productId;
+        private int customerId;
+        private String reason;
+        private String condition;
+        private Dimension[] groupBy = new Dimension[0];
+
+        public Query createdWithinDays(int days) {
+            return createdBetween(LocalDateTime.now().minusDays(days), LocalDateTime.now().plusYears(100));
+        }
+
+        public Query createdBetween(LocalDateTime from, LocalDateTime to) {
+            this.fromMillis = wallClockMillis(from);
+            this.toMillis = wallClockMillis(to);
+            return this;
+        }
+
+        public Query status(ReturnStatus... statuses) {
+            statusMask = 0;
+            for (ReturnStatus status : statuses) {
+                statusMask |= 1 << status.ordinal();
+            }
+            return this;
+        }
+
+        public Query product(int productId) {
+            this.productId = productId;
+            return this;
+        }
+
+        public Query customer(int customerId) {
+            this.customerId = customerId;
+            return this;
+        }
+
+        public Query reason(String reason) {
+            this.reason = reason;
+            return this;
+        }
+
+        public Query condition(String condition) {
+            this.condition = condition;
+            return this;
+        }
+
+        // At most two dimensions, packed into one long key per row
+        public Query groupBy(Dimension... dimensions) {
+            if (dimensions.length > 2) {
+                throw new IllegalArgumentException("Group by supports at most two dimensions");
+            }
+            this.groupBy = dimensions.clone();
+            return this;
+        }
+
+        public long count() {
+            long[] total = { 0 };
+            scan().forEach((key, count) -> total[0] += count);
+            return total[0];
+        }
+
+        // Groups sorted by count, largest first; limit <= 0 returns all of them
+        public List<GroupCount> run(int limit) {
+            StringDictionary reasonDictionary = reasons;
+            StringDictionary conditionDictionary = conditions;
+            List<GroupCount> groups = new ArrayList<>();
+            scan().forEach((key, count) -> {
+                String[] labels = new String[groupBy.length];
+                for (int d = 0; d < groupBy.length; d++) {
+                    int value = d == 0 && groupBy.length == 2 ? (int) (key >>> 32) : (int) key;
+                    labels[d] = label(groupBy[d], value, reasonDictionary, conditionDictionary);
+                }
+                groups.add(new GroupCount(labels, count));
+            });
+            groups.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+            return limit > 0 && groups.size() > limit ? new ArrayList<>(groups.subList(0, limit)) : groups;
+        }
+
+        private CountMap scan() {
+            Chunk[] snapshotChunks = chunks;
+            int rows = rowCount;
+            int reasonCode = reason == null ? Integer.MIN_VALUE : reasons.lookup(reason);
+            int conditionCode = condition == null ? Integer.MIN_VALUE : conditions.lookup(condition);
+            int chunkCount = Math.min(snapshotChunks.length, (rows + CHUNK_ROWS - 1) / CHUNK_ROWS);
+            return IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(i -> scanChunk(snapshotChunks[i], Math.min(CHUNK_ROWS, rows - i * CHUNK_ROWS), reasonCode, conditionCode))
+                    .reduce((a, b) -> {
+                        a.addAll(b);
+                        return a;
+                    })
+                    .orElseGet(CountMap::new);
+        }
+
+        private CountMap scanChunk(Chunk chunk, int rows, int reasonCode, int conditionCode) {
+            CountMap counts = new CountMap();
+            for (int row = 0; row < rows; row++) {
+                long created = chunk.createdMillis.get(row);
+                if (created < fromMillis || created > toMillis) {
+                    continue;
+                }
+                byte status = chunk.statuses.get(row);
+                if (statusMask != -1 && (status < 0 || (statusMask & (1 << status)) == 0)) {
+                    continue;
+                }
+                if (productId != 0 && chunk.productIds.get(row) != productId) {
+                    continue;
+                }
+                if (customerId != 0 && chunk.customerIds.get(row) != customerId) {
+                    continue;
+                }
+                if (reasonCode != Integer.MIN_VALUE && chunk.reasonCodes.get(row) != reasonCode) {
+                    continue;
+                }
+                if (conditionCode != Integer.MIN_VALUE && chunk.conditionCodes.get(row) != conditionCode) {
+                    continue;
+                }
+                long key = 0;
+                for (Dimension dimension : groupBy) {
+                    key = (key << 32) | (value(chunk, row, dimension) & 0xFFFFFFFFL);
+                }
+                counts.add(key, 1);
+            }
+            return counts;
+        }
+    }
+
+    private static int value(Chunk chunk, int row, Dimension dimension) {
+        switch (dimension) {
+            case PRODUCT:
+                return chunk.productIds.get(row);
+            case CUSTOMER:
+                return chunk.customerIds.get(row);
+            case STATUS:
+                return chunk.statuses.get(row);
+            case REASON:
+                return chunk.reasonCodes.get(row);
+            case CONDITION:
+                return chunk.conditionCodes.get(row);
+            default:
+                return (int) Math.floorDiv(chunk.createdMillis.get(row), MILLIS_PER_DAY);
+        }
+    }
+
+    private static String label(Dimension dimension, int value, StringDictionary reasonDictionary, StringDictionary conditionDictionary) {
+        switch (dimension) {
+            case STATUS:
+                return value >= 0 && value < STATUSES.length ? STATUSES[value].name() : "UNKNOWN";
+            case REASON:
+                return String.valueOf(reasonDictionary.decode(value));
+            case CONDITION:
+                return String.valueOf(conditionDictionary.decode(value));
+            case DAY:
+                return LocalDate.ofEpochDay(value).toString();
+            default:
+                return String.valueOf(value);
+        }
+    }
+}
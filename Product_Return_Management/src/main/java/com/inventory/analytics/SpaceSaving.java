@@ -0,0 +1,108 @@
+package com.inventory.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Space-Saving top-k summary: at most `capacity` counters. An unseen key takes over the smallest counter
+// and inherits its count as error, so any key whose true count exceeds total/capacity is always present.
+// Counters live in a min-heap indexed by key, making both increments and evictions O(log capacity).
+class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Integer> positions;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.positions = new HashMap<>(capacity * 2);
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    void offer(String key, long increment) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += increment;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = increment;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        positions.remove(keys[0]);
+        errors[0] = counts[0];
+        counts[0] += increment;
+        keys[0] = key;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    // Adds this summary's [count, error] pairs into totals
+    void mergeInto(Map<String, long[]> totals) {
+        for (int i = 0; i < size; i++) {
+            long[] total = totals.computeIfAbsent(keys[i], k -> new long[2]);
+            total[0] += counts[i];
+            total[1] += errors[i];
+        }
+    }
+
+    void clear() {
+        positions.clear();
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        long count = counts[a];
+        long error = errors[a];
+        keys[a] = keys[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        keys[b] = key;
+        counts[b] = count;
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
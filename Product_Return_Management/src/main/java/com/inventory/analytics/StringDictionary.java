@@ -0,0 +1,54 @@
+package com.inventory.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Assigns each distinct string a dense int code. Codes are appended by the single loader thread; the
+// array doubles when full and the new length is published through the volatile size, so scans can
+// decode without locking and loading N distinct strings stays linear.
+class StringDictionary {
+    static final int NULL_CODE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[INITIAL_CAPACITY];
+    private volatile int size;
+
+    synchronized int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int assigned = size;
+        String[] current = values;
+        if (assigned == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[assigned] = value;
+        codes.put(value, assigned);
+        values = current;
+        size = assigned + 1;
+        return assigned;
+    }
+
+    // Returns NULL_CODE when the string never occurs, so a filter on it can match nothing
+    synchronized int lookup(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? NULL_CODE : code;
+    }
+
+    String decode(int code) {
+        if (code == NULL_CODE || code >= size) {
+            return null;
+        }
+        return values[code];
+    }
+
+    int size() {
+        return size;
+    }
+}
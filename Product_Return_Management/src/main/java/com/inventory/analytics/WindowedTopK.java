@@ -0,0 +1,50 @@
+package com.inventory.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sliding-window heavy hitters: a ring of Space-Saving summaries, one per time bucket. A bucket is
+// cleared when the ring wraps onto it, and queries merge the buckets still inside the window.
+class WindowedTopK {
+    private final long bucketMillis;
+    private final SpaceSaving[] buckets;
+    private final long[] bucketIndexes;
+
+    WindowedTopK(int bucketCount, long bucketMillis, int capacity) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new SpaceSaving[bucketCount];
+        this.bucketIndexes = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new SpaceSaving(capacity);
+            bucketIndexes[i] = -1;
+        }
+    }
+
+    synchronized void offer(String key, long nowMillis) {
+        long index = nowMillis / bucketMillis;
+        int slot = (int) (index % buckets.length);
+        if (bucketIndexes[slot] != index) {
+            buckets[slot].clear();
+            bucketIndexes[slot] = index;
+        }
+        buckets[slot].offer(key, 1);
+    }
+
+    synchronized List<HeavyHitter> top(int n, long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        Map<String, long[]> totals = new HashMap<>();
+        for (int slot = 0; slot < buckets.length; slot++) {
+            if (bucketIndexes[slot] > current - buckets.length && bucketIndexes[slot] <= current) {
+                buckets[slot].mergeInto(totals);
+            }
+        }
+        List<HeavyHitter> hitters = new ArrayList<>(totals.size());
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            hitters.add(new HeavyHitter(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        hitters.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return hitters.size() > n ? new ArrayList<>(hitters.subList(0, n)) : hitters;
+    }
+}
@@ -0,0 +1,130 @@
+package com.inventory.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power-of-two range of nanoseconds is
+// split into 32 linear sub-buckets, so percentiles are within ~3% of the true value. Recording is a
+// couple of atomic increments with no locks.
+public class LatencyHistogram implements LatencyStatsMXBean {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS * 2) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    // Midpoint of the bucket, which bounds the reporting error to half a sub-bucket
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKETS * 2) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index - shift * SUB_BUCKETS;
+        return (subBucket << shift) + (1L << (shift - 1));
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketValue(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return getValueAtPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return getValueAtPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return getValueAtPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus}",
+                name, getCount(), getMeanMicros(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
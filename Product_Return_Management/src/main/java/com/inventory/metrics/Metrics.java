@@ -0,0 +1,146 @@
+package com.inventory.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Process-wide registry of latency histograms and transaction counters, published as JMX MXBeans under
+// the com.inventory domain.
+public final class Metrics {
+    private static final String DOMAIN = "com.inventory";
+    private static final int MAX_STATEMENT_KEYS = 1000;
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, String> STATEMENT_KEYS = new ConcurrentHashMap<>();
+    private static final TransactionStats TRANSACTIONS = new TransactionStats();
+
+    static {
+        register("type=Transactions", TRANSACTIONS);
+    }
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        return HISTOGRAMS.computeIfAbsent(name, key -> {
+            LatencyHistogram created = new LatencyHistogram(key);
+            register("type=Latency,name=" + ObjectName.quote(key), created);
+            return created;
+        });
+    }
+
+    // One histogram per statement shape, named like "sql.INSERT returns"
+    public static LatencyHistogram sqlHistogram(String sql) {
+        String key = STATEMENT_KEYS.get(sql);
+        if (key == null) {
+            key = "sql." + statementKey(sql);
+            if (STATEMENT_KEYS.size() < MAX_STATEMENT_KEYS) {
+                STATEMENT_KEYS.put(sql, key);
+            }
+        }
+        return histogram(key);
+    }
+
+    static String statementKey(String sql) {
+        String[] words = sql.trim().split("[\\s(),]+");
+        String verb = words.length == 0 ? "" : words[0].toUpperCase();
+        String target = null;
+        for (int i = 0; i < words.length - 1 && target == null; i++) {
+            String word = words[i].toUpperCase();
+            if (word.equals("FROM") || word.equals("INTO") || (word.equals("UPDATE") && i == 0) || word.equals("TABLE")) {
+                int next = i + 1;
+                while (next < words.length - 1 && (words[next].equalsIgnoreCase("IF") || words[next].equalsIgnoreCase("NOT")
+                        || words[next].equalsIgnoreCase("EXISTS"))) {
+                    next++;
+                }
+                target = words[next].replace("`", "");
+            }
+        }
+        return target == null ? verb : verb + " " + target;
+    }
+
+    public static void recordCommit() {
+        TRANSACTIONS.commits.increment();
+    }
+
+    public static void recordRollback() {
+        TRANSACTIONS.rollbacks.increment();
+    }
+
+    public static void recordFailure(Throwable error) {
+        TRANSACTIONS.failures.increment();
+        TRANSACTIONS.failuresByType.computeIfAbsent(error.getClass().getSimpleName(), k -> new LongAdder()).increment();
+    }
+
+    public static TransactionStatsMXBean getTransactionStats() {
+        return TRANSACTIONS;
+    }
+
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return new TreeMap<>(HISTOGRAMS);
+    }
+
+    public static void register(String keys, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + keys);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not register metrics bean " + keys + ": " + e.getMessage());
+        }
+    }
+
+    public static void unregister(String keys) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + keys);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            System.out.println("Could not unregister metrics bean " + keys + ": " + e.getMessage());
+        }
+    }
+
+    private static class TransactionStats implements TransactionStatsMXBean {
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder rollbacks = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final Map<String, LongAdder> failuresByType = new ConcurrentHashMap<>();
+
+        @Override
+        public long getCommits() {
+            return commits.sum();
+        }
+
+        @Override
+        public long getRollbacks() {
+            return rollbacks.sum();
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public Map<String, Long> getFailuresByType() {
+            Map<String, Long> snapshot = new TreeMap<>();
+            for (Map.Entry<String, LongAdder> entry : failuresByType.entrySet()) {
+                snapshot.put(entry.getKey(), entry.getValue().sum());
+            }
+            return snapshot;
+        }
+    }
+}
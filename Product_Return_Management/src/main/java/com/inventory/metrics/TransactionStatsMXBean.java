@@ -0,0 +1,10 @@
+package com.inventory.metrics;
+
+import java.util.Map;
+
+public interface TransactionStatsMXBean {
+    long getCommits();
+    long getRollbacks();
+    long getFailures();
+    Map<String, Long> getFailuresByType();
+}
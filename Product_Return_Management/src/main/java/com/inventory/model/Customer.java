@@ -1,5 +1,7 @@
 package com.inventory.model;
 
+import com.inventory.validation.Validators;
+
 public class Customer {
     private int customerId;
     private String name;
@@ -68,7 +70,7 @@ public class Customer {
     }
 
     private void validateEmail(String email) {
-        if (email == null || !email.matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+        if (!Validators.isValidEmail(email)) {
             throw new IllegalArgumentException("Invalid email format");
         }
     }
@@ -1,36 +1,124 @@
 package com.inventory.model;
 
+import com.inventory.analytics.ReturnHeavyHitters;
 import com.inventory.exception.InvalidReturnException;
 import com.inventory.exception.StockUpdateFailureException;
-import com.inventory.util.DatabaseConnection;
-import java.sql.*;
+import com.inventory.metrics.LatencyHistogram;
+import com.inventory.metrics.Metrics;
+import com.inventory.repository.Storage;
+import com.inventory.repository.StorageEngine;
+import com.inventory.repository.Transaction;
+import com.inventory.service.ReturnIntakeJournal;
+import com.inventory.service.ReturnRateMonitor;
+import com.inventory.service.ReturnStatusCache;
+import com.inventory.service.StockLedger;
+import com.inventory.service.StockWriteBehind;
+import com.inventory.validation.ReturnValidator;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
 
 public class CustomerReturn extends Return {
+    private static final LatencyHistogram PROCESS_LATENCY = Metrics.histogram("CustomerReturn.processReturn");
+    private static final LatencyHistogram UPDATE_STOCK_LATENCY = Metrics.histogram("CustomerReturn.updateStock");
+
     private boolean isInspected;
     private String condition;
     private ReturnStatus status;
-    private Connection conn;
+    private final StorageEngine storage = Storage.getEngine();
+    private Transaction tx;
 
-    public CustomerReturn(int customerId, int productId, String reason, String condition) throws SQLException {
+    public CustomerReturn(int customerId, int productId, String reason, String condition) {
         super(customerId, productId, reason);
         this.condition = condition;
         this.isInspected = false;
         this.status = ReturnStatus.PENDING;
-        this.conn = DatabaseConnection.getConnection();
+    }
+
+    // A return as stored, for history reads; the stored id, date and status replace those of a new return
+    public static CustomerReturn fromRecord(ReturnRecord record) {
+        CustomerReturn stored = new CustomerReturn(record.getCustomerId(), record.getProductId(), record.getReason(),
+                record.getCondition());
+        stored.setReturnId(record.getReturnId());
+        stored.setOrderId(record.getOrderId());
+        stored.setReturnDate(record.getCreatedDate());
+        stored.status = ReturnStatus.valueOf(record.getStatus());
+        stored.isInspected = stored.status != ReturnStatus.PENDING;
+        stored.setStatus(stored.status);
+        return stored;
     }
 
     @Override
     public boolean processReturn() {
+        long start = System.nanoTime();
+        if (ReturnIntakeJournal.isEnabled()) {
+            try {
+                return journalReturn();
+            } finally {
+                PROCESS_LATENCY.recordSince(start);
+            }
+        }
+        // The transaction is only held for this unit of work; with the JDBC engine its connection goes back to the pool afterwards
+        try (Transaction transaction = storage.begin()) {
+            this.tx = transaction;
+            return processReturnInTransaction();
+        } catch (SQLException e) {
+            Metrics.recordFailure(e);
+            throw new InvalidReturnException("Return processing failed: " + e.getMessage());
+        } catch (RuntimeException e) {
+            Metrics.recordFailure(e);
+            throw e;
+        } finally {
+            this.tx = null;
+            PROCESS_LATENCY.recordSince(start);
+        }
+    }
+
+    // Existence checks and the stock increment are deferred to the journal drainer, so the return ID stays unknown here
+    private boolean journalReturn() {
+        List<String> violations = ReturnValidator.validate(getCustomerId(), getProductId(), getReason(), condition);
+        if (!violations.isEmpty()) {
+            throw new InvalidReturnException(violations.get(0));
+        }
+        inspectReturn();
+        ReturnRequest request = new ReturnRequest(null, String.valueOf(getCustomerId()), String.valueOf(getProductId()), getReason(), condition);
+        try {
+            ReturnIntakeJournal.getInstance().append(request, status, status == ReturnStatus.APPROVED ? 1 : 0);
+            ReturnHeavyHitters.getInstance().record(getProductId(), getReason());
+            recordReturnRate();
+            return true;
+        } catch (IOException e) {
+            Metrics.recordFailure(e);
+            throw new InvalidReturnException("Return processing failed: " + e.getMessage());
+        }
+    }
+
+    private void recordReturnRate() {
+        if (ReturnRateMonitor.isEnabled()) {
+            ReturnRateMonitor.getInstance().record(getCustomerId());
+        }
+    }
+
+    private boolean processReturnInTransaction() {
         try {
-            conn.setAutoCommit(false);
-            
             validateReturn();
             inspectReturn();
             createReturnRecord();
             updateStock();
-            updateReturnStatus();
             
-            conn.commit();
+            tx.commit();
+            ReturnStatusCache.getInstance().invalidate(getReturnId());
+            ReturnHeavyHitters.getInstance().record(getProductId(), getReason());
+            recordReturnRate();
+            if (isInspected && status == ReturnStatus.APPROVED) {
+                // Deferred stock work is queued only once the return is durable, so a failed commit adds no stock
+                if (StockWriteBehind.isEnabled()) {
+                    StockWriteBehind.getInstance().record(getProductId(), 1);
+                }
+                if (StockLedger.isEnabled()) {
+                    StockLedger.getInstance().apply(getProductId(), 1);
+                }
+            }
             return true;
         } catch (SQLException e) {
             rollbackTransaction();
@@ -38,15 +126,9 @@ public class CustomerReturn extends Return {
         }
     }
 
+    // Inspection has already run, so the final status goes into the single insert
     private void createReturnRecord() throws SQLException {
-        String sql = "INSERT INTO returns (customer_id, product_id, reason, status) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, getCustomerId());
-            stmt.setInt(2, getProductId());
-            stmt.setString(3, getReason());
-            stmt.setString(4, status.toString());
-            stmt.executeUpdate();
-        }
+        setReturnId(storage.returns().insert(tx, null, getCustomerId(), getProductId(), getReason(), condition, status));
     }
 
     @Override
@@ -54,13 +136,23 @@ public class CustomerReturn extends Return {
         if (!isInspected || status != ReturnStatus.APPROVED) {
             return;
         }
+        long start = System.nanoTime();
+        try {
+            applyStockIncrement();
+        } finally {
+            UPDATE_STOCK_LATENCY.recordSince(start);
+        }
+    }
 
-        String sql = "UPDATE products SET current_stock = current_stock + 1 WHERE product_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, getProductId());
-            int rowsAffected = stmt.executeUpdate();
-            
-            if (rowsAffected == 0) {
+    private void applyStockIncrement() {
+        // Product existence was checked in validateReturn, so the increment can be deferred and coalesced;
+        // processReturnInTransaction queues it after the commit
+        if (StockWriteBehind.isEnabled()) {
+            return;
+        }
+
+        try {
+            if (!storage.products().addStock(tx, getProductId(), 1)) {
                 throw new StockUpdateFailureException("Product not found in inventory");
             }
             
@@ -71,31 +163,17 @@ public class CustomerReturn extends Return {
     }
 
     private void validateReturn() {
-        if (getCustomerId() <= 0) {
-            throw new InvalidReturnException("Invalid customer ID");
-        }
-        if (getProductId() <= 0) {
-            throw new InvalidReturnException("Invalid product ID");
-        }
-        if (getReason() == null || getReason().trim().isEmpty()) {
-            throw new InvalidReturnException("Return reason is required");
-        }
-        if (!isValidCondition()) {
-            throw new InvalidReturnException("Invalid product condition");
+        List<String> violations = ReturnValidator.validate(getCustomerId(), getProductId(), getReason(), condition);
+        if (!violations.isEmpty()) {
+            throw new InvalidReturnException(violations.get(0));
         }
         validateCustomerExists();
         validateProductExists();
     }
 
-    private boolean isValidCondition() {
-        return condition != null && condition.matches("(?i)(good|damaged)");
-    }
-
     private void validateCustomerExists() {
-        String sql = "SELECT 1 FROM customers WHERE customer_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, getCustomerId());
-            if (!stmt.executeQuery().next()) {
+        try {
+            if (!storage.customers().exists(tx, getCustomerId())) {
                 throw new InvalidReturnException("Customer not found");
             }
         } catch (SQLException e) {
@@ -104,10 +182,8 @@ public class CustomerReturn extends Return {
     }
 
     private void validateProductExists() {
-        String sql = "SELECT 1 FROM products WHERE product_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, getProductId());
-            if (!stmt.executeQuery().next()) {
+        try {
+            if (!storage.products().exists(tx, getProductId())) {
                 throw new InvalidReturnException("Product not found");
             }
         } catch (SQLException e) {
@@ -117,31 +193,47 @@ public class CustomerReturn extends Return {
 
     private void inspectReturn() {
         this.isInspected = true;
-        this.status = condition.equalsIgnoreCase("good") ? 
+        this.status = ProductCondition.parse(condition) == ProductCondition.GOOD ? 
             ReturnStatus.APPROVED : ReturnStatus.REJECTED;
+        // Customers over the return-rate threshold are not auto-approved
+        if (status == ReturnStatus.APPROVED && ReturnRateMonitor.isEnabled()
+                && ReturnRateMonitor.getInstance().wouldExceed(getCustomerId())) {
+            this.status = ReturnStatus.MANUAL_REVIEW;
+        }
+        setStatus(status);
     }
 
-    private void updateReturnStatus() throws SQLException {
-        String sql = "UPDATE returns SET status = ? WHERE customer_id = ? AND product_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, status.toString());
-            stmt.setInt(2, getCustomerId());
-            stmt.setInt(3, getProductId());
-            stmt.executeUpdate();
+    // Later status transitions for an already recorded return
+    public void updateStatus(ReturnStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        if (getReturnId() <= 0) {
+            throw new InvalidReturnException("Return has not been recorded yet");
+        }
+        try (Transaction transaction = storage.begin()) {
+            this.tx = transaction;
+            if (!storage.returns().updateStatus(tx, getReturnId(), status, newStatus)) {
+                throw new SQLException("Return " + getReturnId() + " not found");
+            }
+            tx.commit();
+            ReturnStatusCache.getInstance().invalidate(getReturnId());
+            this.status = newStatus;
+            setStatus(newStatus);
+        } catch (SQLException e) {
+            throw new InvalidReturnException("Status update failed: " + e.getMessage());
+        } finally {
+            this.tx = null;
         }
     }
 
     private void logInventoryChange() throws SQLException {
-        String sql = "INSERT INTO inventory_log (product_id, quantity_change, action_type) VALUES (?, 1, 'RETURN')";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, getProductId());
-            stmt.executeUpdate();
-        }
+        storage.inventoryLog().append(tx, getProductId(), 1, "RETURN");
     }
 
     private void rollbackTransaction() {
         try {
-            conn.rollback();
+            tx.rollback();
         } catch (SQLException ex) {
             throw new StockUpdateFailureException("Transaction rollback failed");
         }
@@ -156,7 +248,7 @@ public class CustomerReturn extends Return {
     }
 
     public void setCondition(String condition) {
-        if (!condition.matches("(?i)(good|damaged)")) {
+        if (ProductCondition.parse(condition) == null) {
             throw new InvalidReturnException("Invalid product condition");
         }
         this.condition = condition;
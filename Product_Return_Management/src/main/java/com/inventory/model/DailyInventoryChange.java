@@ -0,0 +1,53 @@
+package com.inventory.model;
+
+import java.time.LocalDate;
+
+// One product's inventory movement of one action type on one day, whether read from compacted
+// summaries, raw inventory_log rows, or both
+public class DailyInventoryChange {
+    private final int productId;
+    private final LocalDate day;
+    private final String actionType;
+    private final long quantityChange;
+    private final long entryCount;
+
+    public DailyInventoryChange(int productId, LocalDate day, String actionType, long quantityChange, long entryCount) {
+        this.productId = productId;
+        this.day = day;
+        this.actionType = actionType;
+        this.quantityChange = quantityChange;
+        this.entryCount = entryCount;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public String getActionType() {
+        return actionType;
+    }
+
+    public long getQuantityChange() {
+        return quantityChange;
+    }
+
+    // How many inventory_log rows the change adds up
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyInventoryChange{" +
+               "productId=" + productId +
+               ", day=" + day +
+               ", actionType='" + actionType + '\'' +
+               ", quantityChange=" + quantityChange +
+               ", entryCount=" + entryCount +
+               '}';
+    }
+}
@@ -2,6 +2,7 @@ package com.inventory.model;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class InventoryLog {
@@ -11,7 +12,7 @@ public class InventoryLog {
     private String actionType;
     private LocalDateTime actionDate;
     
-    private static final List<String> VALID_ACTIONS = Arrays.asList("RETURN", "RESTOCK");
+    private static final List<String> VALID_ACTIONS = Collections.unmodifiableList(Arrays.asList("RETURN", "RESTOCK"));
 
     public InventoryLog(int productId, int quantityChange, String actionType) {
         validateProductId(productId);
@@ -20,10 +21,14 @@ public class InventoryLog {
         
         this.productId = productId;
         this.quantityChange = quantityChange;
-        this.actionType = actionType.toUpperCase();
+        this.actionType = canonicalAction(actionType);
         this.actionDate = LocalDateTime.now();
     }
 
+    public static List<String> getValidActions() {
+        return VALID_ACTIONS;
+    }
+
     public int getLogId() { 
         return logId; 
     }
@@ -59,7 +64,7 @@ public class InventoryLog {
 
     public void setActionType(String actionType) { 
         validateActionType(actionType);
-        this.actionType = actionType.toUpperCase(); 
+        this.actionType = canonicalAction(actionType); 
     }
 
     public LocalDateTime getActionDate() { 
@@ -87,11 +92,25 @@ public class InventoryLog {
     }
 
     private void validateActionType(String actionType) {
-        if (actionType == null || !VALID_ACTIONS.contains(actionType.toUpperCase())) {
+        if (canonicalAction(actionType) == null) {
             throw new IllegalArgumentException("Invalid action type. Must be either RETURN or RESTOCK");
         }
     }
 
+    // Returns the shared upper-case constant for a case-insensitive match, so nothing is allocated per call
+    private static String canonicalAction(String actionType) {
+        if (actionType == null) {
+            return null;
+        }
+        for (int i = 0; i < VALID_ACTIONS.size(); i++) {
+            String action = VALID_ACTIONS.get(i);
+            if (action.equalsIgnoreCase(actionType)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return "InventoryLog{" +
@@ -0,0 +1,46 @@
+package com.inventory.model;
+
+public enum ProductCondition {
+    GOOD("Good"),
+    DAMAGED("Damaged");
+
+    private final String label;
+
+    ProductCondition(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Case-insensitive match against the enum names; returns null for anything else and never allocates
+    public static ProductCondition parse(CharSequence value) {
+        if (value == null) {
+            return null;
+        }
+        if (equalsIgnoreCase(value, "GOOD")) {
+            return GOOD;
+        }
+        if (equalsIgnoreCase(value, "DAMAGED")) {
+            return DAMAGED;
+        }
+        return null;
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence value, String upper) {
+        if (value.length() != upper.length()) {
+            return false;
+        }
+        for (int i = 0; i < upper.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c != upper.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 public abstract class Return implements Returnable {
     protected int returnId;
+    protected String orderId;
     protected int customerId;
     protected int productId;
     protected String reason;
@@ -38,6 +39,14 @@ public abstract class Return implements Returnable {
         this.returnId = returnId; 
     }
 
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
     public int getCustomerId() { 
         return customerId; 
     }
@@ -0,0 +1,30 @@
+package com.inventory.model;
+
+import java.util.List;
+
+public class ReturnHistoryPage {
+    private final List<CustomerReturn> returns;
+    private final boolean hasMore;
+
+    public ReturnHistoryPage(List<CustomerReturn> returns, boolean hasMore) {
+        this.returns = returns;
+        this.hasMore = hasMore;
+    }
+
+    public List<CustomerReturn> getReturns() {
+        return returns;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    // Token for ReturnHistoryQuery.after(String), or null on the last page
+    public String getNextCursor() {
+        if (!hasMore || returns.isEmpty()) {
+            return null;
+        }
+        CustomerReturn last = returns.get(returns.size() - 1);
+        return last.getReturnDate() + "_" + last.getReturnId();
+    }
+}
@@ -0,0 +1,90 @@
+package com.inventory.model;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Filters and position for one page of return history, newest first. Pages continue from the last row
+// of the previous page (keyset pagination) rather than an offset, so deep pages cost the same as the first.
+public class ReturnHistoryQuery {
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final Set<ReturnStatus> statuses = EnumSet.noneOf(ReturnStatus.class);
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private int pageSize = 50;
+    private LocalDateTime afterCreatedDate;
+    private int afterReturnId;
+
+    public ReturnHistoryQuery status(ReturnStatus... statuses) {
+        for (ReturnStatus status : statuses) {
+            this.statuses.add(status);
+        }
+        return this;
+    }
+
+    // Created on or after from and before to; either may be null
+    public ReturnHistoryQuery createdBetween(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public ReturnHistoryQuery pageSize(int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public ReturnHistoryQuery after(LocalDateTime createdDate, int returnId) {
+        this.afterCreatedDate = createdDate;
+        this.afterReturnId = returnId;
+        return this;
+    }
+
+    public ReturnHistoryQuery after(ReturnRecord last) {
+        return after(last.getCreatedDate(), last.getReturnId());
+    }
+
+    // Accepts the token from ReturnHistoryPage.getNextCursor(); null or empty starts from the newest return
+    public ReturnHistoryQuery after(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return this;
+        }
+        int separator = cursor.lastIndexOf('_');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+        }
+        try {
+            return after(LocalDateTime.parse(cursor.substring(0, separator)), Integer.parseInt(cursor.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+        }
+    }
+
+    public Set<ReturnStatus> getStatuses() {
+        return statuses;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public LocalDateTime getAfterCreatedDate() {
+        return afterCreatedDate;
+    }
+
+    public int getAfterReturnId() {
+        return afterReturnId;
+    }
+}
@@ -0,0 +1,84 @@
+package com.inventory.model;
+
+public class ReturnOutcome {
+    private final int index;
+    private final ReturnRequest request;
+    private final boolean success;
+    private final String message;
+    private final int returnId;
+    private final boolean duplicate;
+
+    private ReturnOutcome(int index, ReturnRequest request, boolean success, String message, int returnId) {
+        this(index, request, success, message, returnId, false);
+    }
+
+    private ReturnOutcome(int index, ReturnRequest request, boolean success, String message, int returnId, boolean duplicate) {
+        this.index = index;
+        this.request = request;
+        this.success = success;
+        this.message = message;
+        this.returnId = returnId;
+        this.duplicate = duplicate;
+    }
+
+    public static ReturnOutcome accepted(int index, ReturnRequest request) {
+        return accepted(index, request, 0);
+    }
+
+    public static ReturnOutcome accepted(int index, ReturnRequest request, int returnId) {
+        return new ReturnOutcome(index, request, true, "Return processed successfully", returnId);
+    }
+
+    public static ReturnOutcome queued(int index, ReturnRequest request, long sequence) {
+        return new ReturnOutcome(index, request, true, "Return accepted into the intake journal at sequence " + sequence, 0);
+    }
+
+    // A retry of an order line that was already returned; nothing new is created and the original ID is reported
+    public static ReturnOutcome duplicate(int index, ReturnRequest request, int originalReturnId) {
+        return new ReturnOutcome(index, request, true, "Duplicate of return " + originalReturnId, originalReturnId, true);
+    }
+
+    public static ReturnOutcome rejected(int index, ReturnRequest request, String message) {
+        return new ReturnOutcome(index, request, false, message, 0);
+    }
+
+    // The same outcome reported at another position, e.g. when a single return is run as part of a batch
+    public ReturnOutcome withIndex(int index) {
+        return new ReturnOutcome(index, request, success, message, returnId, duplicate);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ReturnRequest getRequest() {
+        return request;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    // 0 when the return was not created or its ID is not known yet, as for journaled returns
+    public int getReturnId() {
+        return returnId;
+    }
+
+    @Override
+    public String toString() {
+        return "ReturnOutcome{" +
+               "index=" + index +
+               ", success=" + success +
+               ", returnId=" + returnId +
+               ", message='" + message + '\'' +
+               '}';
+    }
+}
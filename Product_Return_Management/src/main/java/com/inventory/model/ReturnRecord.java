@@ -0,0 +1,71 @@
+package com.inventory.model;
+
+import java.time.LocalDateTime;
+
+// A row of the returns table as stored, for read paths that hand data back instead of printing it
+public class ReturnRecord {
+    private final int returnId;
+    private final String orderId;
+    private final int customerId;
+    private final int productId;
+    private final LocalDateTime createdDate;
+    private final String reason;
+    private final String condition;
+    private final String status;
+
+    public ReturnRecord(int returnId, String orderId, int customerId, int productId, LocalDateTime createdDate,
+                        String reason, String condition, String status) {
+        this.returnId = returnId;
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.productId = productId;
+        this.createdDate = createdDate;
+        this.reason = reason;
+        this.condition = condition;
+        this.status = status;
+    }
+
+    public int getReturnId() {
+        return returnId;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public LocalDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "ReturnRecord{" +
+               "returnId=" + returnId +
+               ", orderId='" + orderId + '\'' +
+               ", customerId=" + customerId +
+               ", productId=" + productId +
+               ", createdDate=" + createdDate +
+               ", status='" + status + '\'' +
+               '}';
+    }
+}
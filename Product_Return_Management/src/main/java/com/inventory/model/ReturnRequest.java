@@ -0,0 +1,48 @@
+package com.inventory.model;
+
+public class ReturnRequest {
+    private final String orderId;
+    private final String customerId;
+    private final String productId;
+    private final String reason;
+    private final String condition;
+
+    public ReturnRequest(String orderId, String customerId, String productId, String reason, String condition) {
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.productId = productId;
+        this.reason = reason;
+        this.condition = condition;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    @Override
+    public String toString() {
+        return "ReturnRequest{" +
+               "orderId='" + orderId + '\'' +
+               ", customerId='" + customerId + '\'' +
+               ", productId='" + productId + '\'' +
+               ", reason='" + reason + '\'' +
+               ", condition='" + condition + '\'' +
+               '}';
+    }
+}
@@ -3,5 +3,7 @@ package com.inventory.model;
 public enum ReturnStatus {
     PENDING,
     APPROVED,
-    REJECTED
+    REJECTED,
+    // Held back from auto-approval, e.g. for a customer over the return-rate threshold
+    MANUAL_REVIEW
 }
@@ -0,0 +1,9 @@
+package com.inventory.repository;
+
+import java.sql.SQLException;
+
+public interface CustomerRepository {
+    boolean exists(Transaction tx, int customerId) throws SQLException;
+
+    void create(Transaction tx, int customerId, String name, String email, String phone) throws SQLException;
+}
@@ -0,0 +1,46 @@
+package com.inventory.repository;
+
+import java.sql.SQLException;
+
+class InMemoryCustomerRepository implements CustomerRepository {
+    private final InMemoryStorageEngine engine;
+
+    InMemoryCustomerRepository(InMemoryStorageEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public boolean exists(Transaction tx, int customerId) {
+        return customerId > 0 && (engine.customerIndex.containsKey(customerId)
+                || InMemoryTransaction.of(tx).createdCustomer(customerId));
+    }
+
+    @Override
+    public void create(Transaction tx, int customerId, String name, String email, String phone) throws SQLException {
+        InMemoryTransaction t = InMemoryTransaction.of(tx);
+        if (customerId <= 0) {
+            throw new SQLException("Customer ID must be positive", "22003");
+        }
+        if (name == null || email == null) {
+            throw new SQLException("Column '" + (name == null ? "name" : "email") + "' cannot be null", "23000");
+        }
+        if (exists(tx, customerId)) {
+            throw InMemoryStorageEngine.duplicateKey(String.valueOf(customerId), "customers.PRIMARY");
+        }
+        t.addCreatedCustomer(customerId);
+        InMemoryStorageEngine.CustomerRow row = new InMemoryStorageEngine.CustomerRow(customerId, name, email, phone);
+        t.writes.add(new InMemoryTransaction.Write() {
+            @Override
+            public void check() throws SQLException {
+                if (engine.customerIndex.containsKey(customerId)) {
+                    throw InMemoryStorageEngine.duplicateKey(String.valueOf(customerId), "customers.PRIMARY");
+                }
+            }
+
+            @Override
+            public void apply() {
+                engine.addCustomer(row);
+            }
+        });
+    }
+}
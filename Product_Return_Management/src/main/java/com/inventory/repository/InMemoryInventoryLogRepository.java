@@ -0,0 +1,71 @@
+package com.inventory.repository;
+
+import com.inventory.model.DailyInventoryChange;
+import com.inventory.model.InventoryLog;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+class InMemoryInventoryLogRepository implements InventoryLogRepository {
+    private final InMemoryStorageEngine engine;
+
+    InMemoryInventoryLogRepository(InMemoryStorageEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public void append(Transaction tx, int productId, int quantityChange, String actionType) throws SQLException {
+        InventoryLog log;
+        try {
+            log = new InventoryLog(productId, quantityChange, actionType);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), "22000");
+        }
+        // DATETIME keeps whole seconds
+        log.setActionDate(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        InMemoryTransaction.of(tx).writes.add(new InMemoryTransaction.Write() {
+            @Override
+            public void check() {
+            }
+
+            @Override
+            public void apply() {
+                engine.addInventoryLog(log);
+            }
+        });
+    }
+
+    // Nothing is compacted in memory, so this walks the product's raw entries
+    @Override
+    public List<DailyInventoryChange> findDailyChanges(Transaction tx, int productId, LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+        Map<LocalDate, Map<String, long[]>> totals = new TreeMap<>();
+        int logId = productId > 0 ? engine.latestLogByProduct.get(productId, 0) : 0;
+        while (logId != 0) {
+            InMemoryStorageEngine.LogRow row = engine.inventoryLogRows.get(logId);
+            LocalDateTime date = row.log.getActionDate();
+            if (!date.isBefore(start) && date.isBefore(end)) {
+                long[] total = totals.computeIfAbsent(date.toLocalDate(), day -> new TreeMap<>())
+                        .computeIfAbsent(row.log.getActionType(), type -> new long[2]);
+                total[0] += row.log.getQuantityChange();
+                total[1]++;
+            }
+            logId = row.nextForProduct;
+        }
+
+        List<DailyInventoryChange> changes = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<String, long[]>> day : totals.entrySet()) {
+            for (Map.Entry<String, long[]> type : day.getValue().entrySet()) {
+                changes.add(new DailyInventoryChange(productId, day.getKey(), type.getKey(),
+                        type.getValue()[0], type.getValue()[1]));
+            }
+        }
+        return changes;
+    }
+}
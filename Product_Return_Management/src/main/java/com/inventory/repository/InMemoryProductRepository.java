@@ -0,0 +1,59 @@
+package com.inventory.repository;
+
+import java.sql.SQLException;
+
+class InMemoryProductRepository implements ProductRepository {
+    private final InMemoryStorageEngine engine;
+
+    InMemoryProductRepository(InMemoryStorageEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public boolean exists(Transaction tx, int productId) {
+        return productId > 0 && (engine.productIndex.containsKey(productId)
+                || InMemoryTransaction.of(tx).createdProduct(productId));
+    }
+
+    @Override
+    public void create(Transaction tx, int productId, String name, String description, double price, int stock) throws SQLException {
+        InMemoryTransaction t = InMemoryTransaction.of(tx);
+        if (productId <= 0) {
+            throw new SQLException("Product ID must be positive", "22003");
+        }
+        if (name == null) {
+            throw new SQLException("Column 'name' cannot be null", "23000");
+        }
+        if (exists(tx, productId)) {
+            throw InMemoryStorageEngine.duplicateKey(String.valueOf(productId), "products.PRIMARY");
+        }
+        t.addCreatedProduct(productId);
+        InMemoryStorageEngine.ProductRow row = new InMemoryStorageEngine.ProductRow(productId, name, description, price);
+        t.writes.add(new InMemoryTransaction.Write() {
+            @Override
+            public void check() throws SQLException {
+                if (engine.productIndex.containsKey(productId)) {
+                    throw InMemoryStorageEngine.duplicateKey(String.valueOf(productId), "products.PRIMARY");
+                }
+            }
+
+            @Override
+            public void apply() {
+                engine.addProduct(row, stock);
+            }
+        });
+    }
+
+    // The delta is applied at commit on top of whatever stock other transactions committed first, like
+    // current_stock = current_stock + ? in SQL
+    @Override
+    public boolean addStock(Transaction tx, int productId, int delta) {
+        if (!exists(tx, productId)) {
+            return false;
+        }
+        if (delta != 0) {
+            InMemoryTransaction.of(tx).addStockDelta(productId, delta);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,198 @@
+package com.inventory.repository;
+
+import com.inventory.model.CustomerReturn;
+import com.inventory.model.ReturnHistoryPage;
+import com.inventory.model.ReturnHistoryQuery;
+import com.inventory.model.ReturnRecord;
+import com.inventory.model.ReturnStatus;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lookups by ID and history read committed rows, plus this transaction's own writes for lookups by ID
+class InMemoryReturnRepository implements ReturnRepository {
+    private static final Comparator<ReturnRecord> NEWEST_FIRST = Comparator
+            .comparing(ReturnRecord::getCreatedDate, Comparator.reverseOrder())
+            .thenComparing(ReturnRecord::getReturnId, Comparator.reverseOrder());
+
+    private final InMemoryStorageEngine engine;
+
+    InMemoryReturnRepository(InMemoryStorageEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public int insert(Transaction tx, String orderId, int customerId, int productId, String reason, String condition,
+                      ReturnStatus status) throws SQLException {
+        InMemoryTransaction t = InMemoryTransaction.of(tx);
+        if (customerId <= 0 || productId <= 0) {
+            throw new SQLException("Customer and product IDs must be positive", "22003");
+        }
+        if (reason == null || status == null) {
+            throw new SQLException("Column '" + (reason == null ? "reason" : "status") + "' cannot be null", "23000");
+        }
+        String key = InMemoryStorageEngine.orderLineKey(orderId, productId);
+        if (key != null && (t.claimedOrderLine(key) || engine.orderLines.containsKey(key))) {
+            throw InMemoryStorageEngine.duplicateKey(orderId + "-" + productId, "return_keys.PRIMARY");
+        }
+
+        // Like AUTO_INCREMENT, an ID taken by a transaction that rolls back is not reused
+        int returnId = engine.lastReturnId.incrementAndGet();
+        ReturnRecord record = new ReturnRecord(returnId, orderId, customerId, productId,
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS), reason, condition, status.toString());
+        t.addInsertedReturn(record);
+        if (key != null) {
+            t.addClaimedOrderLine(key);
+        }
+        t.writes.add(new InMemoryTransaction.Write() {
+            @Override
+            public void check() throws SQLException {
+                if (key != null && engine.orderLines.containsKey(key)) {
+                    throw InMemoryStorageEngine.duplicateKey(orderId + "-" + productId, "return_keys.PRIMARY");
+                }
+            }
+
+            @Override
+            public void apply() {
+                engine.addReturn(t.writtenReturn(returnId));
+            }
+        });
+        return returnId;
+    }
+
+    @Override
+    public int findByOrderLine(Transaction tx, String orderId, int productId) {
+        String key = InMemoryStorageEngine.orderLineKey(orderId, productId);
+        if (key == null) {
+            return NOT_FOUND;
+        }
+        Integer returnId = engine.orderLines.get(key);
+        return returnId == null ? NOT_FOUND : returnId;
+    }
+
+    // The rollup counters move from the status the row actually has at commit, whatever the caller passed as from
+    @Override
+    public boolean updateStatus(Transaction tx, int returnId, ReturnStatus from, ReturnStatus to) throws SQLException {
+        InMemoryTransaction t = InMemoryTransaction.of(tx);
+        ReturnRecord current = findById(tx, returnId);
+        if (current == null) {
+            return false;
+        }
+        ReturnRecord updated = new ReturnRecord(current.getReturnId(), current.getOrderId(), current.getCustomerId(),
+                current.getProductId(), current.getCreatedDate(), current.getReason(), current.getCondition(), to.toString());
+        if (t.addUpdatedReturn(updated)) {
+            t.writes.add(new InMemoryTransaction.Write() {
+                @Override
+                public void check() {
+                }
+
+                @Override
+                public void apply() {
+                    engine.replaceReturn(t.writtenReturn(returnId));
+                }
+            });
+        }
+        return true;
+    }
+
+    @Override
+    public ReturnRecord findById(Transaction tx, int returnId) {
+        ReturnRecord written = InMemoryTransaction.of(tx).writtenReturn(returnId);
+        if (written != null) {
+            return written;
+        }
+        InMemoryStorageEngine.ReturnRow row = engine.returnRows.get(returnId);
+        return row == null ? null : row.record;
+    }
+
+    @Override
+    public List<ReturnRecord> findByIds(Transaction tx, Collection<Integer> returnIds) {
+        List<ReturnRecord> found = new ArrayList<>(returnIds.size());
+        for (int returnId : new LinkedHashSet<>(returnIds)) {
+            ReturnRecord record = findById(tx, returnId);
+            if (record != null) {
+                found.add(record);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public ReturnHistoryPage findByCustomer(Transaction tx, int customerId, ReturnHistoryQuery query) {
+        return findHistory(customerId > 0 ? engine.latestByCustomer.get(customerId, 0) : 0, true, query);
+    }
+
+    @Override
+    public ReturnHistoryPage findByProduct(Transaction tx, int productId, ReturnHistoryQuery query) {
+        return findHistory(productId > 0 ? engine.latestByProduct.get(productId, 0) : 0, false, query);
+    }
+
+    // Walks the owner's chain of returns and sorts the matches, so a page costs time in proportion to the
+    // owner's total returns rather than the page size
+    private ReturnHistoryPage findHistory(int latest, boolean byCustomer, ReturnHistoryQuery query) {
+        Set<String> statuses = new HashSet<>();
+        for (ReturnStatus status : query.getStatuses()) {
+            statuses.add(status.toString());
+        }
+        List<ReturnRecord> matches = new ArrayList<>();
+        for (int returnId = latest; returnId != 0; ) {
+            InMemoryStorageEngine.ReturnRow row = engine.returnRows.get(returnId);
+            ReturnRecord record = row.record;
+            if (matches(record, statuses, query)) {
+                matches.add(record);
+            }
+            returnId = byCustomer ? row.nextForCustomer : row.nextForProduct;
+        }
+        matches.sort(NEWEST_FIRST);
+        boolean hasMore = matches.size() > query.getPageSize();
+        List<CustomerReturn> returns = new ArrayList<>(Math.min(matches.size(), query.getPageSize()));
+        for (int i = 0; i < matches.size() && i < query.getPageSize(); i++) {
+            returns.add(CustomerReturn.fromRecord(matches.get(i)));
+        }
+        return new ReturnHistoryPage(returns, hasMore);
+    }
+
+    private static boolean matches(ReturnRecord record, Set<String> statuses, ReturnHistoryQuery query) {
+        LocalDateTime created = record.getCreatedDate();
+        if (!statuses.isEmpty() && !statuses.contains(record.getStatus())) {
+            return false;
+        }
+        if (query.getFrom() != null && created.isBefore(query.getFrom())) {
+            return false;
+        }
+        if (query.getTo() != null && !created.isBefore(query.getTo())) {
+            return false;
+        }
+        LocalDateTime after = query.getAfterCreatedDate();
+        return after == null || created.isBefore(after)
+                || (created.equals(after) && record.getReturnId() < query.getAfterReturnId());
+    }
+
+    @Override
+    public Map<String, Long> countByStatusForLast(Transaction tx, String timeFrame) {
+        LocalDateTime since = LocalDateTime.now().minus(1, ChronoUnit.valueOf(timeFrame + "S")).truncatedTo(ChronoUnit.HOURS);
+        long[] totals = new long[ReturnStatus.values().length];
+        for (AtomicLongArray counts : engine.hourlyCounts.tailMap(InMemoryStorageEngine.epochHour(since)).values()) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += counts.get(i);
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ReturnStatus status : ReturnStatus.values()) {
+            if (totals[status.ordinal()] != 0) {
+                result.put(status.toString(), totals[status.ordinal()]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,332 @@
+package com.inventory.repository;
+
+import com.inventory.model.InventoryLog;
+import com.inventory.model.ReturnRecord;
+import com.inventory.model.ReturnStatus;
+import com.inventory.service.DuplicateReturnGuard;
+import com.inventory.util.ConcurrentIntIntHashMap;
+import com.inventory.util.IntIntHashMap;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the four tables in process, for simulation and benchmarks without a database. IDs are looked up
+// through primitive int maps and rows live in chunked arrays, so reads never lock. Transactions buffer their
+// writes and apply them under one commit lock; a commit is a handful of map updates, so the lock is held
+// for microseconds. Constraint violations are reported as SQLExceptions with the same SQL state MySQL uses.
+// Nothing is persisted: the engine starts empty, or from a copy of the database (see load).
+public class InMemoryStorageEngine implements StorageEngine {
+    private static final int LOAD_FETCH_SIZE = 10000;
+    private static final ReturnStatus[] STATUSES = ReturnStatus.values();
+
+    static class CustomerRow {
+        final int customerId;
+        final String name;
+        final String email;
+        final String phone;
+
+        CustomerRow(int customerId, String name, String email, String phone) {
+            this.customerId = customerId;
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+        }
+    }
+
+    static class ProductRow {
+        final int productId;
+        final String name;
+        final String description;
+        final double price;
+
+        ProductRow(int productId, String name, String description, double price) {
+            this.productId = productId;
+            this.name = name;
+            this.description = description;
+            this.price = price;
+        }
+    }
+
+    // Each return links to the previous return of the same customer and of the same product, newest first
+    static class ReturnRow {
+        volatile ReturnRecord record;
+        final int nextForCustomer;
+        final int nextForProduct;
+
+        ReturnRow(ReturnRecord record, int nextForCustomer, int nextForProduct) {
+            this.record = record;
+            this.nextForCustomer = nextForCustomer;
+            this.nextForProduct = nextForProduct;
+        }
+    }
+
+    // Each log entry links to the previous entry for the same product, newest first
+    static class LogRow {
+        final InventoryLog log;
+        final int nextForProduct;
+
+        LogRow(InventoryLog log, int nextForProduct) {
+            this.log = log;
+            this.nextForProduct = nextForProduct;
+        }
+    }
+
+    private final ReentrantLock commitLock = new ReentrantLock();
+
+    // customer_id / product_id -> row number
+    final ConcurrentIntIntHashMap customerIndex = new ConcurrentIntIntHashMap();
+    final ConcurrentIntIntHashMap productIndex = new ConcurrentIntIntHashMap();
+    final RowTable<CustomerRow> customerRows = new RowTable<>();
+    final RowTable<ProductRow> productRows = new RowTable<>();
+    final ConcurrentIntIntHashMap productStock = new ConcurrentIntIntHashMap();
+
+    // Rows are addressed by return_id; IDs handed out to transactions that rolled back stay empty
+    final RowTable<ReturnRow> returnRows = new RowTable<>();
+    final AtomicInteger lastReturnId = new AtomicInteger();
+    final ConcurrentIntIntHashMap latestByCustomer = new ConcurrentIntIntHashMap();
+    final ConcurrentIntIntHashMap latestByProduct = new ConcurrentIntIntHashMap();
+    final Map<String, Integer> orderLines = new ConcurrentHashMap<>();
+    // Epoch hour -> returns created in that hour per status, the in-memory counterpart of return_status_hourly
+    final ConcurrentSkipListMap<Long, AtomicLongArray> hourlyCounts = new ConcurrentSkipListMap<>();
+
+    final RowTable<LogRow> inventoryLogRows = new RowTable<>();
+    final ConcurrentIntIntHashMap latestLogByProduct = new ConcurrentIntIntHashMap();
+
+    private int customerCount;
+    private int productCount;
+    private int returnCount;
+    private int inventoryLogCount;
+
+    private final CustomerRepository customers = new InMemoryCustomerRepository(this);
+    private final ProductRepository products = new InMemoryProductRepository(this);
+    private final ReturnRepository returns = new InMemoryReturnRepository(this);
+    private final InventoryLogRepository inventoryLog = new InMemoryInventoryLogRepository(this);
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public Transaction begin() {
+        return new InMemoryTransaction(this);
+    }
+
+    @Override
+    public Transaction beginRead() {
+        return new InMemoryTransaction(this);
+    }
+
+    @Override
+    public CustomerRepository customers() {
+        return customers;
+    }
+
+    @Override
+    public ProductRepository products() {
+        return products;
+    }
+
+    @Override
+    public ReturnRepository returns() {
+        return returns;
+    }
+
+    @Override
+    public InventoryLogRepository inventoryLog() {
+        return inventoryLog;
+    }
+
+    void commit(InMemoryTransaction tx) throws SQLException {
+        if (tx.isEmpty()) {
+            return;
+        }
+        commitLock.lock();
+        try {
+            for (InMemoryTransaction.Write write : tx.writes) {
+                write.check();
+            }
+            if (tx.stockDeltas != null) {
+                checkStockDeltas(tx.stockDeltas);
+            }
+            for (InMemoryTransaction.Write write : tx.writes) {
+                write.apply();
+            }
+            if (tx.stockDeltas != null) {
+                // Only committers change stock and they hold the lock, so read-then-put loses nothing
+                tx.stockDeltas.forEach((productId, delta) ->
+                        productStock.put(productId, productStock.get(productId, 0) + delta));
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void checkStockDeltas(IntIntHashMap deltas) throws SQLException {
+        SQLException[] failure = new SQLException[1];
+        deltas.forEach((productId, delta) -> {
+            long stock = (long) productStock.get(productId, 0) + delta;
+            if (failure[0] == null && (stock > Integer.MAX_VALUE || stock <= ConcurrentIntIntHashMap.MISSING)) {
+                failure[0] = new SQLException("Out of range value for column 'current_stock' at product " + productId, "22003");
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    static SQLException duplicateKey(String key, String index) {
+        return new SQLException("Duplicate entry '" + key + "' for key '" + index + "'", "23000");
+    }
+
+    static String orderLineKey(String orderId, int productId) {
+        return DuplicateReturnGuard.isKeyed(orderId) ? orderId + '\u0000' + productId : null;
+    }
+
+    static long epochHour(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    // The apply methods below run under the commit lock
+
+    void addCustomer(CustomerRow row) {
+        int rowId = ++customerCount;
+        customerRows.set(rowId, row);
+        customerIndex.put(row.customerId, rowId);
+    }
+
+    void addProduct(ProductRow row, int stock) {
+        int rowId = ++productCount;
+        productRows.set(rowId, row);
+        productStock.put(row.productId, stock);
+        productIndex.put(row.productId, rowId);
+    }
+
+    void addReturn(ReturnRecord record) {
+        int returnId = record.getReturnId();
+        ReturnRow row = new ReturnRow(record, latestByCustomer.get(record.getCustomerId(), 0),
+                latestByProduct.get(record.getProductId(), 0));
+        returnRows.set(returnId, row);
+        latestByCustomer.put(record.getCustomerId(), returnId);
+        latestByProduct.put(record.getProductId(), returnId);
+        String key = orderLineKey(record.getOrderId(), record.getProductId());
+        if (key != null) {
+            orderLines.putIfAbsent(key, returnId);
+        }
+        countReturn(record.getCreatedDate(), record.getStatus(), 1);
+        returnCount++;
+    }
+
+    void replaceReturn(ReturnRecord record) {
+        ReturnRow row = returnRows.get(record.getReturnId());
+        ReturnRecord previous = row.record;
+        row.record = record;
+        countReturn(previous.getCreatedDate(), previous.getStatus(), -1);
+        countReturn(record.getCreatedDate(), record.getStatus(), 1);
+    }
+
+    // Rows loaded with a status this version does not know are left out of the counts
+    private void countReturn(LocalDateTime created, String status, int delta) {
+        for (ReturnStatus candidate : STATUSES) {
+            if (candidate.name().equals(status)) {
+                hourlyCounts.computeIfAbsent(epochHour(created), hour -> new AtomicLongArray(STATUSES.length))
+                        .addAndGet(candidate.ordinal(), delta);
+                return;
+            }
+        }
+    }
+
+    void addInventoryLog(InventoryLog log) {
+        int logId = ++inventoryLogCount;
+        log.setLogId(logId);
+        inventoryLogRows.set(logId, new LogRow(log, latestLogByProduct.get(log.getProductId(), 0)));
+        latestLogByProduct.put(log.getProductId(), logId);
+    }
+
+    // Copies customers, products and returns from the database so simulations start from real data.
+    // inventory_log is history only and is not copied.
+    public void load(Connection conn) throws SQLException {
+        commitLock.lock();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(LOAD_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery("SELECT customer_id, name, email, phone FROM customers")) {
+                while (rs.next()) {
+                    if (rs.getInt(1) > 0 && !customerIndex.containsKey(rs.getInt(1))) {
+                        addCustomer(new CustomerRow(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                    }
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT product_id, name, description, price, current_stock FROM products")) {
+                while (rs.next()) {
+                    if (rs.getInt(1) > 0 && !productIndex.containsKey(rs.getInt(1))) {
+                        addProduct(new ProductRow(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getDouble(4)), rs.getInt(5));
+                    }
+                }
+            }
+            String sql = "SELECT return_id, order_id, customer_id, product_id, created_date, reason, `product_condition`, status "
+                    + "FROM returns WHERE return_id > " + lastReturnId.get() + " ORDER BY return_id";
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    Timestamp created = rs.getTimestamp(5);
+                    ReturnRecord record = new ReturnRecord(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getInt(4),
+                            created == null ? LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS) : created.toLocalDateTime(),
+                            rs.getString(6), rs.getString(7), rs.getString(8));
+                    if (record.getCustomerId() > 0 && record.getProductId() > 0) {
+                        addReturn(record);
+                        lastReturnId.set(record.getReturnId());
+                    }
+                }
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Committed stock, or -1 for an unknown product
+    public int getStock(int productId) {
+        return productId > 0 ? productStock.get(productId, -1) : -1;
+    }
+
+    public int getCustomerCount() {
+        return customerIndex.size();
+    }
+
+    public int getProductCount() {
+        return productIndex.size();
+    }
+
+    public int getReturnCount() {
+        commitLock.lock();
+        try {
+            return returnCount;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    public int getInventoryLogCount() {
+        commitLock.lock();
+        try {
+            return inventoryLogCount;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryStorageEngine{customers=" + getCustomerCount() + ", products=" + getProductCount()
+                + ", returns=" + getReturnCount() + ", inventoryLog=" + getInventoryLogCount() + '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.inventory.repository;
+
+import com.inventory.model.ReturnRecord;
+import com.inventory.util.IntIntHashMap;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Buffers writes until commit, when the engine re-checks their constraints and applies them all under its
+// commit lock, so other transactions see all of them or none. Reads by ID see this transaction's own writes.
+class InMemoryTransaction implements Transaction {
+    interface Write {
+        // Runs under the commit lock before anything is applied; throwing fails the whole commit
+        void check() throws SQLException;
+
+        void apply();
+    }
+
+    private final InMemoryStorageEngine engine;
+
+    final List<Write> writes = new ArrayList<>();
+    IntIntHashMap createdCustomers;
+    IntIntHashMap createdProducts;
+    IntIntHashMap stockDeltas;
+    Map<Integer, ReturnRecord> insertedReturns;
+    Map<Integer, ReturnRecord> updatedReturns;
+    Set<String> claimedOrderLines;
+
+    InMemoryTransaction(InMemoryStorageEngine engine) {
+        this.engine = engine;
+    }
+
+    static InMemoryTransaction of(Transaction tx) {
+        if (!(tx instanceof InMemoryTransaction)) {
+            throw new IllegalArgumentException("Transaction does not belong to the in-memory storage engine");
+        }
+        return (InMemoryTransaction) tx;
+    }
+
+    boolean isEmpty() {
+        return writes.isEmpty() && (stockDeltas == null || stockDeltas.isEmpty());
+    }
+
+    boolean createdCustomer(int customerId) {
+        return createdCustomers != null && createdCustomers.containsKey(customerId);
+    }
+
+    void addCreatedCustomer(int customerId) {
+        if (createdCustomers == null) {
+            createdCustomers = new IntIntHashMap();
+        }
+        createdCustomers.put(customerId, 1);
+    }
+
+    boolean createdProduct(int productId) {
+        return createdProducts != null && createdProducts.containsKey(productId);
+    }
+
+    void addCreatedProduct(int productId) {
+        if (createdProducts == null) {
+            createdProducts = new IntIntHashMap();
+        }
+        createdProducts.put(productId, 1);
+    }
+
+    void addStockDelta(int productId, int delta) {
+        if (stockDeltas == null) {
+            stockDeltas = new IntIntHashMap();
+        }
+        stockDeltas.addTo(productId, delta);
+    }
+
+    // The latest version of a return this transaction inserted or updated, or null
+    ReturnRecord writtenReturn(int returnId) {
+        ReturnRecord record = insertedReturns == null ? null : insertedReturns.get(returnId);
+        if (record == null && updatedReturns != null) {
+            record = updatedReturns.get(returnId);
+        }
+        return record;
+    }
+
+    void addInsertedReturn(ReturnRecord record) {
+        if (insertedReturns == null) {
+            insertedReturns = new HashMap<>();
+        }
+        insertedReturns.put(record.getReturnId(), record);
+    }
+
+    // Returns true the first time this transaction updates a committed return
+    boolean addUpdatedReturn(ReturnRecord record) {
+        if (insertedReturns != null && insertedReturns.containsKey(record.getReturnId())) {
+            insertedReturns.put(record.getReturnId(), record);
+            return false;
+        }
+        if (updatedReturns == null) {
+            updatedReturns = new HashMap<>();
+        }
+        return updatedReturns.put(record.getReturnId(), record) == null;
+    }
+
+    boolean claimedOrderLine(String key) {
+        return claimedOrderLines != null && claimedOrderLines.contains(key);
+    }
+
+    void addClaimedOrderLine(String key) {
+        if (claimedOrderLines == null) {
+            claimedOrderLines = new HashSet<>();
+        }
+        claimedOrderLines.add(key);
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        try {
+            engine.commit(this);
+        } finally {
+            reset();
+        }
+    }
+
+    @Override
+    public void rollback() {
+        reset();
+    }
+
+    @Override
+    public void close() {
+        reset();
+    }
+
+    private void reset() {
+        writes.clear();
+        createdCustomers = null;
+        createdProducts = null;
+        stockDeltas = null;
+        insertedReturns = null;
+        updatedReturns = null;
+        claimedOrderLines = null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.inventory.repository;
+
+import com.inventory.model.DailyInventoryChange;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface InventoryLogRepository {
+    void append(Transaction tx, int productId, int quantityChange, String actionType) throws SQLException;
+
+    // One entry per day and action type in [from, to), oldest first. Days already compacted into
+    // inventory_log_daily and days still held as raw rows are merged, so callers cannot tell them apart.
+    List<DailyInventoryChange> findDailyChanges(Transaction tx, int productId, LocalDate from, LocalDate to) throws SQLException;
+}
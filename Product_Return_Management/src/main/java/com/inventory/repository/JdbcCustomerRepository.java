@@ -0,0 +1,30 @@
+package com.inventory.repository;
+
+import com.inventory.service.ExistenceCache;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+class JdbcCustomerRepository implements CustomerRepository {
+    private final ExistenceCache existenceCache = ExistenceCache.getInstance();
+
+    @Override
+    public boolean exists(Transaction tx, int customerId) throws SQLException {
+        return existenceCache.exists(JdbcTransaction.connectionOf(tx), ExistenceCache.Entity.CUSTOMER, customerId);
+    }
+
+    @Override
+    public void create(Transaction tx, int customerId, String name, String email, String phone) throws SQLException {
+        Connection conn = JdbcTransaction.connectionOf(tx);
+        String sql = "INSERT INTO customers (customer_id, name, email, phone) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, customerId);
+            stmt.setString(2, name);
+            stmt.setString(3, email);
+            stmt.setString(4, phone);
+            stmt.executeUpdate();
+        }
+        // Caching before the commit would let a concurrent exists() re-cache "absent" for the negative TTL
+        JdbcTransaction.afterCommit(tx, () -> existenceCache.record(ExistenceCache.Entity.CUSTOMER, customerId, true));
+    }
+}
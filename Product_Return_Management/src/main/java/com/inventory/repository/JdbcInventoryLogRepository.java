@@ -0,0 +1,55 @@
+package com.inventory.repository;
+
+import com.inventory.model.DailyInventoryChange;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class JdbcInventoryLogRepository implements InventoryLogRepository {
+    // Summaries from migration V8 plus the raw rows not compacted yet, both read through their
+    // (product_id, day) indexes
+    private static final String DAILY_CHANGES_SQL = "SELECT action_day, action_type, "
+            + "SUM(quantity_change) AS quantity_change, SUM(entry_count) AS entry_count FROM ("
+            + "SELECT action_day, action_type, quantity_change, entry_count FROM inventory_log_daily "
+            + "WHERE product_id = ? AND action_day >= ? AND action_day < ? "
+            + "UNION ALL "
+            + "SELECT CAST(action_date AS DATE), UPPER(action_type), quantity_change, 1 FROM inventory_log "
+            + "WHERE product_id = ? AND action_date >= ? AND action_date < ?"
+            + ") changes GROUP BY action_day, action_type ORDER BY action_day, action_type";
+
+    @Override
+    public void append(Transaction tx, int productId, int quantityChange, String actionType) throws SQLException {
+        String sql = "INSERT INTO inventory_log (product_id, quantity_change, action_type) VALUES (?, ?, ?)";
+        try (PreparedStatement stmt = JdbcTransaction.connectionOf(tx).prepareStatement(sql)) {
+            stmt.setInt(1, productId);
+            stmt.setInt(2, quantityChange);
+            stmt.setString(3, actionType);
+            stmt.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<DailyInventoryChange> findDailyChanges(Transaction tx, int productId, LocalDate from, LocalDate to) throws SQLException {
+        List<DailyInventoryChange> changes = new ArrayList<>();
+        try (PreparedStatement stmt = JdbcTransaction.connectionOf(tx).prepareStatement(DAILY_CHANGES_SQL)) {
+            stmt.setInt(1, productId);
+            stmt.setDate(2, Date.valueOf(from));
+            stmt.setDate(3, Date.valueOf(to));
+            stmt.setInt(4, productId);
+            stmt.setTimestamp(5, Timestamp.valueOf(from.atStartOfDay()));
+            stmt.setTimestamp(6, Timestamp.valueOf(to.atStartOfDay()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new DailyInventoryChange(productId, rs.getDate("action_day").toLocalDate(),
+                            rs.getString("action_type"), rs.getLong("quantity_change"), rs.getLong("entry_count")));
+                }
+            }
+        }
+        return changes;
+    }
+}
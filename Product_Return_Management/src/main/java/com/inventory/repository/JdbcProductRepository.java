@@ -0,0 +1,40 @@
+package com.inventory.repository;
+
+import com.inventory.service.ExistenceCache;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+class JdbcProductRepository implements ProductRepository {
+    private final ExistenceCache existenceCache = ExistenceCache.getInstance();
+
+    @Override
+    public boolean exists(Transaction tx, int productId) throws SQLException {
+        return existenceCache.exists(JdbcTransaction.connectionOf(tx), ExistenceCache.Entity.PRODUCT, productId);
+    }
+
+    @Override
+    public void create(Transaction tx, int productId, String name, String description, double price, int stock) throws SQLException {
+        Connection conn = JdbcTransaction.connectionOf(tx);
+        String sql = "INSERT INTO products (product_id, name, description, price, current_stock) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, productId);
+            stmt.setString(2, name);
+            stmt.setString(3, description);
+            stmt.setDouble(4, price);
+            stmt.setInt(5, stock);
+            stmt.executeUpdate();
+        }
+        JdbcTransaction.afterCommit(tx, () -> existenceCache.record(ExistenceCache.Entity.PRODUCT, productId, true));
+    }
+
+    @Override
+    public boolean addStock(Transaction tx, int productId, int delta) throws SQLException {
+        String sql = "UPDATE products SET current_stock = current_stock + ? WHERE product_id = ?";
+        try (PreparedStatement stmt = JdbcTransaction.connectionOf(tx).prepareStatement(sql)) {
+            stmt.setInt(1, delta);
+            stmt.setInt(2, productId);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+}
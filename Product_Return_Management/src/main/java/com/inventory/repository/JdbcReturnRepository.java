@@ -0,0 +1,191 @@
+package com.inventory.repository;
+
+import com.inventory.model.CustomerReturn;
+import com.inventory.model.ReturnHistoryPage;
+import com.inventory.model.ReturnHistoryQuery;
+import com.inventory.model.ReturnRecord;
+import com.inventory.model.ReturnStatus;
+import com.inventory.service.DuplicateReturnGuard;
+import com.inventory.service.ReturnRollupService;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Every insert and status change also moves the hourly rollups (V3) and claims the order line in
+// return_keys (V7) inside the same transaction, so they commit or roll back together
+class JdbcReturnRepository implements ReturnRepository {
+    private static final int IN_BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO returns (order_id, customer_id, product_id, reason, product_condition, status) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String RETURN_COLUMNS = "return_id, order_id, customer_id, product_id, created_date, reason, `product_condition`, status";
+
+    @Override
+    public int insert(Transaction tx, String orderId, int customerId, int productId, String reason, String condition,
+                      ReturnStatus status) throws SQLException {
+        Connection conn = JdbcTransaction.connectionOf(tx);
+        int returnId;
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, orderId);
+            stmt.setInt(2, customerId);
+            stmt.setInt(3, productId);
+            stmt.setString(4, reason);
+            stmt.setString(5, condition);
+            stmt.setString(6, status.toString());
+            stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No return ID generated");
+                }
+                returnId = keys.getInt(1);
+            }
+        }
+        DuplicateReturnGuard.getInstance().claim(conn, orderId, productId, returnId);
+        ReturnRollupService.recordCreated(conn, returnId);
+        return returnId;
+    }
+
+    @Override
+    public int findByOrderLine(Transaction tx, String orderId, int productId) throws SQLException {
+        return DuplicateReturnGuard.getInstance().findOriginal(JdbcTransaction.connectionOf(tx), orderId, productId);
+    }
+
+    @Override
+    public boolean updateStatus(Transaction tx, int returnId, ReturnStatus from, ReturnStatus to) throws SQLException {
+        Connection conn = JdbcTransaction.connectionOf(tx);
+        String sql = "UPDATE returns SET status = ? WHERE return_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, to.toString());
+            stmt.setInt(2, returnId);
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+        }
+        ReturnRollupService.recordTransition(conn, returnId, from, to);
+        return true;
+    }
+
+    @Override
+    public ReturnRecord findById(Transaction tx, int returnId) throws SQLException {
+        String sql = "SELECT " + RETURN_COLUMNS + " FROM returns WHERE return_id = ?";
+        try (PreparedStatement stmt = JdbcTransaction.connectionOf(tx).prepareStatement(sql)) {
+            stmt.setInt(1, returnId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? toReturnRecord(rs) : null;
+            }
+        }
+    }
+
+    // One IN query per IN_BATCH_SIZE IDs
+    @Override
+    public List<ReturnRecord> findByIds(Transaction tx, Collection<Integer> returnIds) throws SQLException {
+        Connection conn = JdbcTransaction.connectionOf(tx);
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(returnIds));
+        List<ReturnRecord> found = new ArrayList<>(ids.size());
+        for (int start = 0; start < ids.size(); start += IN_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(start, Math.min(start + IN_BATCH_SIZE, ids.size()));
+            StringBuilder sql = new StringBuilder("SELECT ").append(RETURN_COLUMNS).append(" FROM returns WHERE return_id IN (");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        found.add(toReturnRecord(rs));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public ReturnHistoryPage findByCustomer(Transaction tx, int customerId, ReturnHistoryQuery query) throws SQLException {
+        return findHistory(JdbcTransaction.connectionOf(tx), "customer_id", customerId, query);
+    }
+
+    @Override
+    public ReturnHistoryPage findByProduct(Transaction tx, int productId, ReturnHistoryQuery query) throws SQLException {
+        return findHistory(JdbcTransaction.connectionOf(tx), "product_id", productId, query);
+    }
+
+    // Each page seeks past the previous page's last (created_date, return_id) on the V6 history indexes
+    // instead of using OFFSET, and one extra row is read to tell whether another page follows.
+    private ReturnHistoryPage findHistory(Connection conn, String ownerColumn, int ownerId, ReturnHistoryQuery query) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT ").append(RETURN_COLUMNS)
+                .append(" FROM returns WHERE ").append(ownerColumn).append(" = ?");
+        if (!query.getStatuses().isEmpty()) {
+            sql.append(" AND status IN (");
+            for (int i = 0; i < query.getStatuses().size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+        }
+        if (query.getFrom() != null) {
+            sql.append(" AND created_date >= ?");
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND created_date < ?");
+        }
+        if (query.getAfterCreatedDate() != null) {
+            sql.append(" AND (created_date < ? OR (created_date = ? AND return_id < ?))");
+        }
+        sql.append(" ORDER BY created_date DESC, return_id DESC LIMIT ?");
+
+        List<CustomerReturn> returns = new ArrayList<>(query.getPageSize() + 1);
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            stmt.setInt(index++, ownerId);
+            for (ReturnStatus status : query.getStatuses()) {
+                stmt.setString(index++, status.toString());
+            }
+            if (query.getFrom() != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(query.getFrom()));
+            }
+            if (query.getTo() != null) {
+                stmt.setTimestamp(index++, Timestamp.valueOf(query.getTo()));
+            }
+            if (query.getAfterCreatedDate() != null) {
+                Timestamp after = Timestamp.valueOf(query.getAfterCreatedDate());
+                stmt.setTimestamp(index++, after);
+                stmt.setTimestamp(index++, after);
+                stmt.setInt(index++, query.getAfterReturnId());
+            }
+            stmt.setInt(index, query.getPageSize() + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    returns.add(CustomerReturn.fromRecord(toReturnRecord(rs)));
+                }
+            }
+        }
+        boolean hasMore = returns.size() > query.getPageSize();
+        if (hasMore) {
+            returns.remove(returns.size() - 1);
+        }
+        return new ReturnHistoryPage(returns, hasMore);
+    }
+
+    // Sums the hourly rollup buckets rather than scanning returns
+    @Override
+    public Map<String, Long> countByStatusForLast(Transaction tx, String timeFrame) throws SQLException {
+        return ReturnRollupService.countsForLast(JdbcTransaction.connectionOf(tx), timeFrame);
+    }
+
+    private static ReturnRecord toReturnRecord(ResultSet rs) throws SQLException {
+        Timestamp created = rs.getTimestamp("created_date");
+        return new ReturnRecord(rs.getInt("return_id"), rs.getString("order_id"), rs.getInt("customer_id"),
+                rs.getInt("product_id"), created == null ? null : created.toLocalDateTime(),
+                rs.getString("reason"), rs.getString("product_condition"), rs.getString("status"));
+    }
+}
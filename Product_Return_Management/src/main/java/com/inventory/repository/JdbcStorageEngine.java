@@ -0,0 +1,55 @@
+package com.inventory.repository;
+
+import com.inventory.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// The MySQL-backed engine: connections come from DatabaseConnection's pool and the schema from SchemaMigrator
+public class JdbcStorageEngine implements StorageEngine {
+    private final CustomerRepository customers = new JdbcCustomerRepository();
+    private final ProductRepository products = new JdbcProductRepository();
+    private final ReturnRepository returns = new JdbcReturnRepository();
+    private final InventoryLogRepository inventoryLog = new JdbcInventoryLogRepository();
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+
+    @Override
+    public Transaction begin() throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        try {
+            conn.setAutoCommit(false);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return new JdbcTransaction(conn);
+    }
+
+    @Override
+    public Transaction beginRead() throws SQLException {
+        return new JdbcTransaction(DatabaseConnection.getConnection());
+    }
+
+    @Override
+    public CustomerRepository customers() {
+        return customers;
+    }
+
+    @Override
+    public ProductRepository products() {
+        return products;
+    }
+
+    @Override
+    public ReturnRepository returns() {
+        return returns;
+    }
+
+    @Override
+    public InventoryLogRepository inventoryLog() {
+        return inventoryLog;
+    }
+}
@@ -0,0 +1,64 @@
+package com.inventory.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// A pooled connection held for one unit of work; closing it hands it back to the pool, which rolls back
+// anything left uncommitted
+class JdbcTransaction implements Transaction {
+    private final Connection conn;
+    private List<Runnable> afterCommit;
+
+    JdbcTransaction(Connection conn) {
+        this.conn = conn;
+    }
+
+    static Connection connectionOf(Transaction tx) {
+        if (!(tx instanceof JdbcTransaction)) {
+            throw new IllegalArgumentException("Transaction does not belong to the JDBC storage engine");
+        }
+        return ((JdbcTransaction) tx).conn;
+    }
+
+    // Runs the action once the transaction's writes are visible to other connections; dropped on rollback
+    static void afterCommit(Transaction tx, Runnable action) throws SQLException {
+        JdbcTransaction jdbcTx = (JdbcTransaction) tx;
+        if (jdbcTx.conn.getAutoCommit()) {
+            action.run();
+            return;
+        }
+        if (jdbcTx.afterCommit == null) {
+            jdbcTx.afterCommit = new ArrayList<>();
+        }
+        jdbcTx.afterCommit.add(action);
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        if (!conn.getAutoCommit()) {
+            conn.commit();
+        }
+        List<Runnable> actions = afterCommit;
+        afterCommit = null;
+        if (actions != null) {
+            for (Runnable action : actions) {
+                action.run();
+            }
+        }
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        afterCommit = null;
+        if (!conn.getAutoCommit()) {
+            conn.rollback();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        conn.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.inventory.repository;
+
+import java.sql.SQLException;
+
+public interface ProductRepository {
+    boolean exists(Transaction tx, int productId) throws SQLException;
+
+    void create(Transaction tx, int productId, String name, String description, double price, int stock) throws SQLException;
+
+    // Returns false when there is no such product
+    boolean addStock(Transaction tx, int productId, int delta) throws SQLException;
+}
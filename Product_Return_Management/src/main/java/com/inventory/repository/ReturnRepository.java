@@ -0,0 +1,39 @@
+package com.inventory.repository;
+
+import com.inventory.model.ReturnHistoryPage;
+import com.inventory.model.ReturnHistoryQuery;
+import com.inventory.model.ReturnRecord;
+import com.inventory.model.ReturnStatus;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ReturnRepository {
+    int NOT_FOUND = 0;
+
+    // Returns the generated return ID. A keyed order line (order_id, product_id) can be claimed by one return
+    // only; a second claim fails with a constraint violation.
+    int insert(Transaction tx, String orderId, int customerId, int productId, String reason, String condition,
+               ReturnStatus status) throws SQLException;
+
+    // Returns the return that claimed this order line, or NOT_FOUND
+    int findByOrderLine(Transaction tx, String orderId, int productId) throws SQLException;
+
+    // Returns false when there is no such return
+    boolean updateStatus(Transaction tx, int returnId, ReturnStatus from, ReturnStatus to) throws SQLException;
+
+    // Returns null when there is no such return
+    ReturnRecord findById(Transaction tx, int returnId) throws SQLException;
+
+    // IDs with no return are left out
+    List<ReturnRecord> findByIds(Transaction tx, Collection<Integer> returnIds) throws SQLException;
+
+    // Newest first, one page at a time; see ReturnHistoryQuery for the cursor
+    ReturnHistoryPage findByCustomer(Transaction tx, int customerId, ReturnHistoryQuery query) throws SQLException;
+
+    ReturnHistoryPage findByProduct(Transaction tx, int productId, ReturnHistoryQuery query) throws SQLException;
+
+    // Counts per status over the last DAY, WEEK or MONTH, with the start rounded down to the hour
+    Map<String, Long> countByStatusForLast(Transaction tx, String timeFrame) throws SQLException;
+}
@@ -0,0 +1,40 @@
+package com.inventory.repository;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Rows addressed by a dense int ID, stored in fixed-size chunks so growing never copies rows. One writer at a
+// time (the engine's commit lock); readers never lock and see a row as soon as it is set.
+class RowTable<T> {
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private volatile AtomicReferenceArray<T>[] chunks = new AtomicReferenceArray[0];
+
+    // Returns null for an ID that was never set
+    T get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        AtomicReferenceArray<T>[] current = chunks;
+        int chunk = id >>> CHUNK_BITS;
+        return chunk < current.length ? current[chunk].get(id & CHUNK_MASK) : null;
+    }
+
+    void set(int id, T row) {
+        int chunk = id >>> CHUNK_BITS;
+        AtomicReferenceArray<T>[] current = chunks;
+        if (chunk >= current.length) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            AtomicReferenceArray<T>[] grown = new AtomicReferenceArray[Math.max(chunk + 1, current.length * 2)];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+            chunks = grown;
+            current = grown;
+        }
+        current[chunk].set(id & CHUNK_MASK, row);
+    }
+}
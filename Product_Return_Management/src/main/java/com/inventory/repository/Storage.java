@@ -0,0 +1,55 @@
+package com.inventory.repository;
+
+import com.inventory.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Chooses the storage engine once per process: -Dstorage.engine=jdbc (the default) or memory.
+// With -Dstorage.memory.preload the in-memory engine starts from a copy of the database.
+public final class Storage {
+    private static final String ENGINE = System.getProperty("storage.engine", "jdbc");
+    private static final boolean PRELOAD = Boolean.getBoolean("storage.memory.preload");
+
+    private static volatile StorageEngine engine;
+
+    private Storage() {
+    }
+
+    public static boolean isInMemory() {
+        return "memory".equalsIgnoreCase(ENGINE);
+    }
+
+    public static StorageEngine getEngine() {
+        StorageEngine current = engine;
+        if (current == null) {
+            synchronized (Storage.class) {
+                current = engine;
+                if (current == null) {
+                    current = create();
+                    engine = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static StorageEngine create() {
+        if ("jdbc".equalsIgnoreCase(ENGINE)) {
+            return new JdbcStorageEngine();
+        }
+        if (!isInMemory()) {
+            throw new IllegalArgumentException("Unknown storage engine: " + ENGINE);
+        }
+        InMemoryStorageEngine memory = new InMemoryStorageEngine();
+        if (PRELOAD) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                memory.load(conn);
+            } catch (SQLException e) {
+                System.out.println("Error loading in-memory storage from the database: " + e.getMessage());
+            } finally {
+                DatabaseConnection.shutdown();
+            }
+        }
+        return memory;
+    }
+}
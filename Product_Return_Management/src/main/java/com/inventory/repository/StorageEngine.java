@@ -0,0 +1,20 @@
+package com.inventory.repository;
+
+import java.sql.SQLException;
+
+public interface StorageEngine {
+    String getName();
+
+    Transaction begin() throws SQLException;
+
+    // For lookups that write nothing; cheaper than begin on engines where opening a transaction costs a round trip
+    Transaction beginRead() throws SQLException;
+
+    CustomerRepository customers();
+
+    ProductRepository products();
+
+    ReturnRepository returns();
+
+    InventoryLogRepository inventoryLog();
+}
@@ -0,0 +1,15 @@
+package com.inventory.repository;
+
+import java.sql.SQLException;
+
+// One unit of work against a storage engine. Nothing written through it is visible to other transactions
+// until commit; close rolls back whatever was not committed. Failures surface as SQLException on every
+// engine, so constraint violations keep their SQL state (23xxx) and existing handlers apply unchanged.
+public interface Transaction extends AutoCloseable {
+    void commit() throws SQLException;
+
+    void rollback() throws SQLException;
+
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,651 @@
+package com.inventory.server;
+
+import com.inventory.analytics.GroupCount;
+import com.inventory.analytics.HeavyHitter;
+import com.inventory.analytics.ReturnHeavyHitters;
+import com.inventory.analytics.ReturnsSnapshot;
+import com.inventory.metrics.LatencyHistogram;
+import com.inventory.metrics.Metrics;
+import com.inventory.model.CustomerReturn;
+import com.inventory.model.DailyInventoryChange;
+import com.inventory.model.ReturnHistoryPage;
+import com.inventory.model.ReturnHistoryQuery;
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRecord;
+import com.inventory.model.ReturnRequest;
+import com.inventory.model.ReturnStatus;
+import com.inventory.service.InventoryLogService;
+import com.inventory.service.ReturnService;
+import com.inventory.util.ConnectionPool;
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.JsonWriter;
+import com.inventory.util.ReturnRecordParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// JSON over HTTP front end for ReturnService. Responses always carry a Content-Length so the JDK server
+// keeps connections alive between requests; each request is timed into a per-endpoint histogram.
+public class ReturnHttpServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = Integer.getInteger("server.maxBodyBytes", 16 << 20);
+    private static final int BACKLOG = Integer.getInteger("server.backlog", 1024);
+    private static final int QUEUE_SIZE = Integer.getInteger("server.queueSize", 1000);
+    private static final int STOP_DELAY_SECONDS = Integer.getInteger("server.stopDelaySeconds", 2);
+    private static final String JSON = "application/json; charset=utf-8";
+
+    // The JDK server writes headers and body separately; without TCP_NODELAY every keep-alive response
+    // waits out the client's delayed ACK (~40 ms). Read once when the server implementation loads.
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ReturnService returnService;
+    private final InventoryLogService inventoryLogService = new InventoryLogService();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final long startedAt = System.currentTimeMillis();
+
+    public ReturnHttpServer(ReturnService returnService, InetSocketAddress address, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        this.returnService = returnService;
+        this.server = HttpServer.create(address, BACKLOG);
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newBoundedExecutor(threads);
+        server.setExecutor(executor);
+
+        server.createContext("/returns", endpoint("returns", this::handleReturns));
+        server.createContext("/returns/batch", endpoint("returns.batch", this::handleBatch));
+        server.createContext("/customers", endpoint("customers.returns", this::handleHistory));
+        // Both product resources share the /products context; each keeps its own latency metric
+        HttpHandler productReturns = endpoint("products.returns", this::handleHistory);
+        HttpHandler productInventory = endpoint("products.inventory", this::handleInventory);
+        server.createContext("/products", exchange -> (exchange.getRequestURI().getPath().endsWith("/inventory")
+                ? productInventory : productReturns).handle(exchange));
+        server.createContext("/reports", endpoint("reports", this::handleReport));
+        server.createContext("/reports/top", endpoint("reports.top", this::handleTopReturns));
+        server.createContext("/analytics", endpoint("analytics", this::handleAnalytics));
+        server.createContext("/health", endpoint("health", this::handleHealth));
+    }
+
+    // Virtual threads need Java 21; on older runtimes a bounded platform pool is used instead
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // When the queue is full the dispatcher runs the request itself, which stops it accepting until a slot frees up
+    private static ExecutorService newBoundedExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+            Thread t = new Thread(r, "http-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    private interface Endpoint {
+        Response handle(HttpExchange exchange) throws IOException, SQLException;
+    }
+
+    private static class Response {
+        private final int status;
+        private final byte[] body;
+
+        Response(int status, byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response json(int status, JsonWriter json) {
+            return new Response(status, json.toBytes());
+        }
+
+        static Response error(int status, String message) {
+            return json(status, new JsonWriter().beginObject().field("error", message).endObject());
+        }
+    }
+
+    private HttpHandler endpoint(String name, Endpoint endpoint) {
+        LatencyHistogram latency = Metrics.histogram("http." + name);
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                Response response;
+                try {
+                    response = endpoint.handle(exchange);
+                } catch (SQLException e) {
+                    Metrics.recordFailure(e);
+                    response = Response.error(503, "Database error: " + e.getMessage());
+                } catch (IllegalArgumentException e) {
+                    response = Response.error(400, "Invalid request: " + e.getMessage());
+                } catch (RuntimeException e) {
+                    Metrics.recordFailure(e);
+                    response = Response.error(500, "Internal error: " + e.getMessage());
+                }
+                send(exchange, response, start);
+            } finally {
+                exchange.close();
+                latency.recordSince(start);
+            }
+        };
+    }
+
+    private void send(HttpExchange exchange, Response response, long start) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.getResponseHeaders().set("Server-Timing", String.format("app;dur=%.3f", (System.nanoTime() - start) / 1_000_000.0));
+        if (response.body.length == 0) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(response.status, response.body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response.body);
+        }
+    }
+
+    // POST /returns creates one return from a JSON object; GET /returns/{id} looks one up
+    private Response handleReturns(HttpExchange exchange) throws IOException, SQLException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        if (path.equals("/returns") || path.equals("/returns/")) {
+            if (method.equals("GET")) {
+                return lookupReturns(exchange);
+            }
+            if (!method.equals("POST")) {
+                return Response.error(405, "Use POST to create a return");
+            }
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                return Response.error(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+            }
+            ReturnRecordParser parser = new ReturnRecordParser(ReturnRecordParser.Format.NDJSON);
+            ReturnRequest request = parser.parse(body, 0, body.length);
+            if (request == null) {
+                return Response.error(400, parser.getError());
+            }
+            ReturnOutcome outcome = returnService.processReturn(request);
+            JsonWriter json = new JsonWriter();
+            writeOutcome(json, outcome);
+            // A retried order line gets the original return back with 200 rather than a second 201
+            return Response.json(!outcome.isSuccess() ? 422 : outcome.isDuplicate() ? 200 : 201, json);
+        }
+
+        if (!method.equals("GET")) {
+            return Response.error(405, "Use GET to look up a return");
+        }
+        int returnId;
+        try {
+            returnId = Integer.parseInt(path.substring("/returns/".length()));
+        } catch (NumberFormatException e) {
+            return Response.error(404, "Unknown resource " + path);
+        }
+        ReturnRecord record = returnService.findReturn(returnId);
+        if (record == null) {
+            return Response.error(404, "Return not found");
+        }
+        JsonWriter json = new JsonWriter();
+        writeRecord(json, record);
+        return Response.json(200, json);
+    }
+
+    // GET /returns?ids=1,2,3 answers from the status cache and loads the rest with one query
+    private Response lookupReturns(HttpExchange exchange) throws SQLException {
+        String ids = queryParameter(exchange.getRequestURI(), "ids");
+        if (ids == null || ids.isEmpty()) {
+            return Response.error(400, "ids is required, e.g. /returns?ids=1,2,3");
+        }
+        List<Integer> returnIds = new ArrayList<>();
+        try {
+            for (String id : ids.split(",")) {
+                returnIds.add(Integer.parseInt(id.trim()));
+            }
+        } catch (NumberFormatException e) {
+            return Response.error(400, "ids must be numbers");
+        }
+        if (returnIds.size() > ReturnHistoryQuery.MAX_PAGE_SIZE) {
+            return Response.error(400, "At most " + ReturnHistoryQuery.MAX_PAGE_SIZE + " ids per request");
+        }
+        JsonWriter json = new JsonWriter().beginObject().name("returns").beginArray();
+        for (ReturnRecord record : returnService.findReturns(returnIds).values()) {
+            writeRecord(json, record);
+        }
+        json.endArray().endObject();
+        return Response.json(200, json);
+    }
+
+    private void writeRecord(JsonWriter json, ReturnRecord record) {
+        json.beginObject()
+                .field("return_id", record.getReturnId())
+                .field("order_id", record.getOrderId())
+                .field("customer_id", record.getCustomerId())
+                .field("product_id", record.getProductId())
+                .field("created_date", record.getCreatedDate() == null ? null : record.getCreatedDate().toString())
+                .field("reason", record.getReason())
+                .field("condition", record.getCondition())
+                .field("status", record.getStatus())
+                .endObject();
+    }
+
+    private void writeReturn(JsonWriter json, CustomerReturn stored) {
+        json.beginObject()
+                .field("return_id", stored.getReturnId())
+                .field("order_id", stored.getOrderId())
+                .field("customer_id", stored.getCustomerId())
+                .field("product_id", stored.getProductId())
+                .field("created_date", stored.getReturnDate().toString())
+                .field("reason", stored.getReason())
+                .field("condition", stored.getCondition())
+                .field("status", stored.getStatus().toString())
+                .endObject();
+    }
+
+    // GET /customers/{id}/returns and /products/{id}/returns
+    //     ?status=APPROVED,REJECTED&from=2024-01-01&to=2024-02-01&limit=50&after=<next_cursor>
+    private Response handleHistory(HttpExchange exchange) throws SQLException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return Response.error(405, "Use GET for return history");
+        }
+        URI uri = exchange.getRequestURI();
+        String[] parts = uri.getPath().split("/");
+        if (parts.length != 4 || !parts[3].equals("returns")) {
+            return Response.error(404, "Unknown resource " + uri.getPath());
+        }
+        int ownerId;
+        ReturnHistoryQuery query = new ReturnHistoryQuery();
+        try {
+            ownerId = Integer.parseInt(parts[2]);
+            String statuses = queryParameter(uri, "status");
+            if (statuses != null && !statuses.isEmpty()) {
+                for (String status : statuses.split(",")) {
+                    query.status(ReturnStatus.valueOf(status.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+            String from = queryParameter(uri, "from");
+            String to = queryParameter(uri, "to");
+            query.createdBetween(from == null ? null : LocalDate.parse(from).atStartOfDay(),
+                    to == null ? null : LocalDate.parse(to).atStartOfDay());
+            String limit = queryParameter(uri, "limit");
+            if (limit != null) {
+                query.pageSize(Integer.parseInt(limit));
+            }
+            String after = queryParameter(uri, "after");
+            query.after(after);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Response.error(400, "Invalid history query: " + e.getMessage());
+        }
+
+        ReturnHistoryPage page = parts[1].equals("customers")
+                ? returnService.findCustomerHistory(ownerId, query)
+                : returnService.findProductHistory(ownerId, query);
+        JsonWriter json = new JsonWriter().beginObject().name("returns").beginArray();
+        for (CustomerReturn stored : page.getReturns()) {
+            writeReturn(json, stored);
+        }
+        json.endArray().field("next_cursor", page.getNextCursor()).endObject();
+        return Response.json(200, json);
+    }
+
+    // GET /products/{id}/inventory?from=2024-01-01&to=2024-02-01 lists stock movements per day and action type,
+    // by default over the last 30 days; compacted and recent days are returned alike
+    private Response handleInventory(HttpExchange exchange) throws SQLException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return Response.error(405, "Use GET for inventory history");
+        }
+        URI uri = exchange.getRequestURI();
+        String[] parts = uri.getPath().split("/");
+        if (parts.length != 4) {
+            return Response.error(404, "Unknown resource " + uri.getPath());
+        }
+        int productId;
+        LocalDate from;
+        LocalDate to;
+        try {
+            productId = Integer.parseInt(parts[2]);
+            String toParameter = queryParameter(uri, "to");
+            to = toParameter == null ? LocalDate.now().plusDays(1) : LocalDate.parse(toParameter);
+            String fromParameter = queryParameter(uri, "from");
+            from = fromParameter == null ? to.minusDays(30) : LocalDate.parse(fromParameter);
+            if (from.isAfter(to)) {
+                return Response.error(400, "from must not be after to");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Response.error(400, "Invalid inventory query: " + e.getMessage());
+        }
+
+        JsonWriter json = new JsonWriter().beginObject().field("product_id", productId).name("days").beginArray();
+        for (DailyInventoryChange change : inventoryLogService.getDailyChanges(productId, from, to)) {
+            json.beginObject()
+                    .field("day", change.getDay().toString())
+                    .field("action_type", change.getActionType())
+                    .field("quantity_change", change.getQuantityChange())
+                    .field("entries", change.getEntryCount())
+                    .endObject();
+        }
+        json.endArray().endObject();
+        return Response.json(200, json);
+    }
+
+    // POST /returns/batch takes NDJSON, or CSV when the Content-Type says so, and answers with one outcome per line
+    private Response handleBatch(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return Response.error(405, "Use POST to submit a batch");
+        }
+        byte[] body = readBody(exchange);
+        if (body == null) {
+            return Response.error(413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        ReturnRecordParser.Format format = contentType != null && contentType.toLowerCase().contains("csv")
+                ? ReturnRecordParser.Format.CSV : ReturnRecordParser.Format.NDJSON;
+        ReturnRecordParser parser = new ReturnRecordParser(format);
+
+        List<ReturnOutcome> outcomes = new ArrayList<>();
+        List<ReturnRequest> requests = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= body.length; i++) {
+            if (i < body.length && body[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && body[i - 1] == '\r' ? i - 1 : i;
+            if (lineEnd > lineStart && !parser.isHeader(body, lineStart, lineEnd)) {
+                ReturnRequest request = parser.parse(body, lineStart, lineEnd);
+                if (request == null) {
+                    outcomes.add(ReturnOutcome.rejected(outcomes.size(), null, parser.getError()));
+                } else {
+                    positions.add(outcomes.size());
+                    requests.add(request);
+                    outcomes.add(null);
+                }
+            }
+            lineStart = i + 1;
+        }
+
+        if (!requests.isEmpty()) {
+            List<ReturnOutcome> processed = returnService.processReturnsBatch(requests);
+            for (int i = 0; i < processed.size(); i++) {
+                int position = positions.get(i);
+                outcomes.set(position, processed.get(i).withIndex(position));
+            }
+        }
+
+        int accepted = 0;
+        JsonWriter json = new JsonWriter(64 + outcomes.size() * 80).beginObject().name("outcomes").beginArray();
+        for (ReturnOutcome outcome : outcomes) {
+            writeOutcome(json, outcome);
+            if (outcome.isSuccess()) {
+                accepted++;
+            }
+        }
+        json.endArray().field("accepted", accepted).field("rejected", outcomes.size() - accepted).endObject();
+        return Response.json(200, json);
+    }
+
+    // GET /reports?period=day|week|month
+    private Response handleReport(HttpExchange exchange) throws SQLException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return Response.error(405, "Use GET for reports");
+        }
+        String period = queryParameter(exchange.getRequestURI(), "period");
+        int reportType;
+        if (period == null || period.equalsIgnoreCase("day")) {
+            reportType = 1;
+        } else if (period.equalsIgnoreCase("week")) {
+            reportType = 2;
+        } else if (period.equalsIgnoreCase("month")) {
+            reportType = 3;
+        } else {
+            return Response.error(400, "period must be day, week or month");
+        }
+
+        Map<String, Long> counts = returnService.reportCounts(reportType);
+        long total = 0;
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("period", ReturnService.reportTimeFrame(reportType))
+                .name("counts").beginObject();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            json.field(entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        json.endObject().field("total", total).endObject();
+        return Response.json(200, json);
+    }
+
+    // GET /reports/top?window=hour|day|week&limit=10, from the in-memory heavy hitters rather than the database
+    private Response handleTopReturns(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return Response.error(405, "Use GET for reports");
+        }
+        String windowName = queryParameter(exchange.getRequestURI(), "window");
+        ReturnHeavyHitters.Window window;
+        if (windowName == null || windowName.equalsIgnoreCase("day")) {
+            window = ReturnHeavyHitters.Window.LAST_DAY;
+        } else if (windowName.equalsIgnoreCase("hour")) {
+            window = ReturnHeavyHitters.Window.LAST_HOUR;
+        } else if (windowName.equalsIgnoreCase("week")) {
+            window = ReturnHeavyHitters.Window.LAST_WEEK;
+        } else {
+            return Response.error(400, "window must be hour, day or week");
+        }
+        int limit;
+        try {
+            String limitParameter = queryParameter(exchange.getRequestURI(), "limit");
+            limit = limitParameter == null ? 10 : Integer.parseInt(limitParameter);
+        } catch (NumberFormatException e) {
+            return Response.error(400, "limit must be a number");
+        }
+
+        ReturnHeavyHitters heavyHitters = ReturnHeavyHitters.getInstance();
+        JsonWriter json = new JsonWriter().beginObject().field("window", window.name());
+        writeHeavyHitters(json.name("products"), heavyHitters.topProducts(window, limit));
+        writeHeavyHitters(json.name("reasons"), heavyHitters.topReasons(window, limit));
+        json.endObject();
+        return Response.json(200, json);
+    }
+
+    private void writeHeavyHitters(JsonWriter json, List<HeavyHitter> hitters) {
+        json.beginArray();
+        for (HeavyHitter hitter : hitters) {
+            json.beginObject()
+                    .field("key", hitter.getKey())
+                    .field("count", hitter.getCount())
+                    .field("error", hitter.getError())
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    // GET /analytics?days=90&groupBy=product,reason&status=APPROVED&product=&customer=&reason=&limit=50
+    // Answered from the in-memory snapshot, which first pulls in returns created since its last refresh
+    private Response handleAnalytics(HttpExchange exchange) throws SQLException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            return Response.error(405, "Use GET for analytics");
+        }
+        URI uri = exchange.getRequestURI();
+        ReturnsSnapshot snapshot = ReturnsSnapshot.getInstance();
+        snapshot.refreshIfStale();
+        ReturnsSnapshot.Query query = snapshot.query();
+        ReturnsSnapshot.Dimension[] dimensions;
+        int limit;
+        try {
+            String days = queryParameter(uri, "days");
+            query.createdWithinDays(days == null ? 90 : Integer.parseInt(days));
+            String groupBy = queryParameter(uri, "groupBy");
+            String[] names = (groupBy == null || groupBy.isEmpty() ? "product" : groupBy).split(",");
+            dimensions = new ReturnsSnapshot.Dimension[names.length];
+            for (int i = 0; i < names.length; i++) {
+                dimensions[i] = ReturnsSnapshot.Dimension.valueOf(names[i].trim().toUpperCase(Locale.ROOT));
+            }
+            query.groupBy(dimensions);
+            String status = queryParameter(uri, "status");
+            if (status != null) {
+                query.status(ReturnStatus.valueOf(status.toUpperCase(Locale.ROOT)));
+            }
+            String product = queryParameter(uri, "product");
+            if (product != null) {
+                query.product(Integer.parseInt(product));
+            }
+            String customer = queryParameter(uri, "customer");
+            if (customer != null) {
+                query.customer(Integer.parseInt(customer));
+            }
+            String reason = queryParameter(uri, "reason");
+            if (reason != null) {
+                query.reason(reason);
+            }
+            String limitParameter = queryParameter(uri, "limit");
+            limit = limitParameter == null ? 50 : Integer.parseInt(limitParameter);
+        } catch (IllegalArgumentException e) {
+            return Response.error(400, "Invalid analytics query: " + e.getMessage());
+        }
+
+        List<GroupCount> groups = query.run(limit);
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("rows", snapshot.getRowCount())
+                .name("groups").beginArray();
+        for (GroupCount group : groups) {
+            json.beginObject();
+            for (int i = 0; i < dimensions.length; i++) {
+                json.field(dimensions[i].name().toLowerCase(Locale.ROOT), group.getLabels().get(i));
+            }
+            json.field("count", group.getCount()).endObject();
+        }
+        json.endArray().endObject();
+        return Response.json(200, json);
+    }
+
+    // GET /health stays off the database so load balancers and load tests can poll it freely; ?deep=true also checks a connection
+    private Response handleHealth(HttpExchange exchange) {
+        ConnectionPool pool = DatabaseConnection.getPool();
+        boolean deep = "true".equalsIgnoreCase(queryParameter(exchange.getRequestURI(), "deep"));
+        boolean databaseUp = true;
+        if (deep) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                databaseUp = conn.isValid(1);
+            } catch (SQLException e) {
+                databaseUp = false;
+            }
+        }
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("status", databaseUp ? "UP" : "DOWN")
+                .field("uptime_ms", System.currentTimeMillis() - startedAt)
+                .field("virtual_threads", virtualThreads)
+                .name("pool").beginObject()
+                .field("active", pool.getActiveCount())
+                .field("idle", pool.getIdleCount())
+                .field("max", pool.getMaxSize())
+                .endObject();
+        if (deep) {
+            json.field("database", databaseUp ? "UP" : "DOWN");
+        }
+        json.endObject();
+        return Response.json(databaseUp ? 200 : 503, json);
+    }
+
+    private void writeOutcome(JsonWriter json, ReturnOutcome outcome) {
+        json.beginObject()
+                .field("index", outcome.getIndex())
+                .field("success", outcome.isSuccess());
+        if (outcome.getReturnId() > 0) {
+            json.field("return_id", outcome.getReturnId());
+        }
+        if (outcome.isDuplicate()) {
+            json.field("duplicate", true);
+        }
+        json.field("message", outcome.getMessage()).endObject();
+    }
+
+    // Returns null when the body is larger than the configured limit
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null) {
+            try {
+                if (Long.parseLong(length.trim()) > MAX_BODY_BYTES) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                // fall back to counting while reading
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                if (out.size() + read > MAX_BODY_BYTES) {
+                    return null;
+                }
+                out.write(chunk, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // Splits the raw query so an encoded '&' or '=' inside a value stays part of it, then decodes each key and
+    // value exactly once; a malformed escape is an IllegalArgumentException, which endpoint() answers with 400
+    private static String queryParameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
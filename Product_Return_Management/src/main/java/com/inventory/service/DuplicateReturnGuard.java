@@ -0,0 +1,135 @@
+package com.inventory.service;
+
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.ScalableBloomFilter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Idempotent intake on (order_id, product_id). A Bloom filter of every claimed key answers the common
+// "definitely new" case in memory; only possible duplicates are looked up in return_keys, whose primary key
+// is what finally rejects a concurrent second claim. Warmed from return_keys on first use.
+public class DuplicateReturnGuard {
+    private static final int EXPECTED_KEYS = Integer.getInteger("dedupe.expectedKeys", 1_000_000);
+    private static final double FALSE_POSITIVE_RATE = Double.parseDouble(System.getProperty("dedupe.falsePositiveRate", "0.01"));
+    private static final int WARM_FETCH_SIZE = 10000;
+
+    private static final String FIND_SQL = "SELECT return_id FROM return_keys WHERE order_id = ? AND product_id = ?";
+    private static final String CLAIM_SQL = "INSERT INTO return_keys (order_id, product_id, return_id) VALUES (?, ?, ?)";
+
+    public static final int NOT_FOUND = 0;
+
+    private static volatile DuplicateReturnGuard instance;
+
+    private final ScalableBloomFilter filter;
+
+    public DuplicateReturnGuard(int expectedKeys, double falsePositiveRate) {
+        this.filter = new ScalableBloomFilter(expectedKeys, falsePositiveRate);
+    }
+
+    public static DuplicateReturnGuard getInstance() {
+        DuplicateReturnGuard current = instance;
+        if (current == null) {
+            synchronized (DuplicateReturnGuard.class) {
+                current = instance;
+                if (current == null) {
+                    current = new DuplicateReturnGuard(EXPECTED_KEYS, FALSE_POSITIVE_RATE);
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        current.warm(conn);
+                    } catch (SQLException e) {
+                        System.out.println("Error warming duplicate return filter: " + e.getMessage());
+                    }
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Orders without an ID cannot be matched, so they are never treated as duplicates
+    public static boolean isKeyed(String orderId) {
+        return orderId != null && !orderId.isEmpty();
+    }
+
+    public int warm(Connection conn) throws SQLException {
+        int loaded = 0;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(WARM_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery("SELECT order_id, product_id FROM return_keys")) {
+                while (rs.next()) {
+                    filter.add(rs.getString(1), rs.getInt(2));
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Returns the return that already claimed this order line, or NOT_FOUND; no query when the filter rules it out
+    public int findOriginal(Connection conn, String orderId, int productId) throws SQLException {
+        if (!isKeyed(orderId) || !filter.mightContain(orderId, productId)) {
+            return NOT_FOUND;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(FIND_SQL)) {
+            stmt.setString(1, orderId);
+            stmt.setInt(2, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : NOT_FOUND;
+            }
+        }
+    }
+
+    // Records the claim in the caller's transaction; a concurrent claim of the same key fails it with a
+    // constraint violation (see isDuplicateKey)
+    public void claim(Connection conn, String orderId, int productId, int returnId) throws SQLException {
+        if (!isKeyed(orderId)) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(CLAIM_SQL)) {
+            stmt.setString(1, orderId);
+            stmt.setInt(2, productId);
+            stmt.setInt(3, returnId);
+            stmt.executeUpdate();
+        }
+        // Added before commit: a rollback leaves a false positive, which only costs one lookup later
+        filter.add(orderId, productId);
+    }
+
+    public void claimAll(Connection conn, String[] orderIds, int[] productIds, int[] returnIds) throws SQLException {
+        int claimed = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(CLAIM_SQL)) {
+            for (int i = 0; i < orderIds.length; i++) {
+                if (isKeyed(orderIds[i])) {
+                    stmt.setString(1, orderIds[i]);
+                    stmt.setInt(2, productIds[i]);
+                    stmt.setInt(3, returnIds[i]);
+                    stmt.addBatch();
+                    claimed++;
+                }
+            }
+            if (claimed > 0) {
+                stmt.executeBatch();
+            }
+        }
+        for (int i = 0; i < orderIds.length; i++) {
+            if (isKeyed(orderIds[i])) {
+                filter.add(orderIds[i], productIds[i]);
+            }
+        }
+    }
+
+    public static boolean isDuplicateKey(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current.getSQLState() != null && current.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public ScalableBloomFilter getFilter() {
+        return filter;
+    }
+}
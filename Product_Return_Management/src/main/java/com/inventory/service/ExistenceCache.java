@@ -0,0 +1,107 @@
+package com.inventory.service;
+
+import com.inventory.util.LruCache;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Caches "does this customer/product exist" answers. Unknown IDs are cached only briefly so a row
+// inserted elsewhere becomes visible quickly; rows created through the repositories are cached as present
+// once their insert commits.
+public class ExistenceCache {
+    private static final int MAX_SIZE = Integer.getInteger("cache.existence.maxSize", 20000);
+    private static final long TTL_MILLIS = Long.getLong("cache.existence.ttlMillis", 600000L);
+    private static final long NEGATIVE_TTL_MILLIS = Long.getLong("cache.existence.negativeTtlMillis", 30000L);
+
+    private static final ExistenceCache INSTANCE = new ExistenceCache(MAX_SIZE, TTL_MILLIS, NEGATIVE_TTL_MILLIS);
+
+    public enum Entity {
+        CUSTOMER("customers", "customer_id"),
+        PRODUCT("products", "product_id");
+
+        private final String table;
+        private final String idColumn;
+
+        Entity(String table, String idColumn) {
+            this.table = table;
+            this.idColumn = idColumn;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getIdColumn() {
+            return idColumn;
+        }
+    }
+
+    private final LruCache<Integer, Boolean> customers;
+    private final LruCache<Integer, Boolean> products;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    public ExistenceCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this.customers = new LruCache<>(maxSize);
+        this.products = new LruCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    public static ExistenceCache getInstance() {
+        return INSTANCE;
+    }
+
+    private LruCache<Integer, Boolean> cacheFor(Entity entity) {
+        return entity == Entity.CUSTOMER ? customers : products;
+    }
+
+    public boolean exists(Connection conn, Entity entity, int id) throws SQLException {
+        Boolean cached = lookup(entity, id);
+        if (cached != null) {
+            return cached;
+        }
+        String sql = "SELECT 1 FROM " + entity.table + " WHERE " + entity.idColumn + " = ?";
+        boolean exists;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                exists = rs.next();
+            }
+        }
+        record(entity, id, exists);
+        return exists;
+    }
+
+    // Returns null when the answer is not cached
+    public Boolean lookup(Entity entity, int id) {
+        return cacheFor(entity).get(id);
+    }
+
+    public void record(Entity entity, int id, boolean exists) {
+        cacheFor(entity).put(id, exists, exists ? ttlMillis : negativeTtlMillis);
+    }
+
+    public void invalidate(Entity entity, int id) {
+        cacheFor(entity).invalidate(id);
+    }
+
+    public void invalidateAll() {
+        customers.invalidateAll();
+        products.invalidateAll();
+    }
+
+    public LruCache<Integer, Boolean> getCustomerCache() {
+        return customers;
+    }
+
+    public LruCache<Integer, Boolean> getProductCache() {
+        return products;
+    }
+
+    @Override
+    public String toString() {
+        return "ExistenceCache{customers=" + customers + ", products=" + products + '}';
+    }
+}
@@ -0,0 +1,272 @@
+package com.inventory.service;
+
+import com.inventory.metrics.LatencyHistogram;
+import com.inventory.metrics.Metrics;
+import com.inventory.model.DailyInventoryChange;
+import com.inventory.model.InventoryLog;
+import com.inventory.repository.Storage;
+import com.inventory.repository.StorageEngine;
+import com.inventory.repository.Transaction;
+import com.inventory.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps inventory_log small by rolling raw rows older than the retention period into per-product, per-day
+// totals in inventory_log_daily (migration V8). Each chunk of rows is summarised and removed in its own short
+// transaction, so compaction never holds locks on more than chunkSize rows at a time; getDailyChanges reads
+// the summaries and the remaining raw rows together.
+public class InventoryLogService {
+    private static final int RETENTION_DAYS = Integer.getInteger("inventoryLog.retentionDays", 90);
+    private static final int CHUNK_SIZE = Integer.getInteger("inventoryLog.compaction.chunkSize", 5000);
+    private static final long PAUSE_MILLIS = Long.getLong("inventoryLog.compaction.pauseMillis", 50L);
+    private static final boolean ARCHIVE = Boolean.getBoolean("inventoryLog.compaction.archive");
+    private static final long INTERVAL_MINUTES = Long.getLong("inventoryLog.compaction.intervalMinutes", 0L);
+
+    private static final LatencyHistogram CHUNK_LATENCY = Metrics.histogram("InventoryLogService.compactChunk");
+
+    private static final String COMPACTABLE = "log_id > ? AND log_id <= ? AND action_date < ? AND UPPER(action_type) IN ("
+            + actionList() + ")";
+
+    private static final String CHUNK_END_SQL = "SELECT MAX(log_id) FROM (SELECT log_id FROM inventory_log "
+            + "WHERE log_id > ? AND action_date < ? AND UPPER(action_type) IN (" + actionList() + ") "
+            + "ORDER BY log_id LIMIT ?) chunk";
+
+    private static final String SUMMARISE_SQL = "INSERT INTO inventory_log_daily "
+            + "(product_id, action_day, action_type, quantity_change, entry_count) "
+            + "SELECT product_id, CAST(action_date AS DATE), UPPER(action_type), SUM(quantity_change), COUNT(*) "
+            + "FROM inventory_log WHERE " + COMPACTABLE + " "
+            + "GROUP BY product_id, CAST(action_date AS DATE), UPPER(action_type) "
+            + "ON DUPLICATE KEY UPDATE quantity_change = quantity_change + VALUES(quantity_change), "
+            + "entry_count = entry_count + VALUES(entry_count)";
+
+    private static final String ARCHIVE_SQL = "INSERT INTO inventory_log_archive "
+            + "(log_id, product_id, quantity_change, action_type, action_date) "
+            + "SELECT log_id, product_id, quantity_change, action_type, action_date FROM inventory_log WHERE " + COMPACTABLE;
+
+    private static final String DELETE_SQL = "DELETE FROM inventory_log WHERE " + COMPACTABLE;
+
+    private static ScheduledExecutorService scheduler;
+
+    private final StorageEngine storage = Storage.getEngine();
+    private final int retentionDays;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final boolean archive;
+
+    public InventoryLogService() {
+        this(RETENTION_DAYS, CHUNK_SIZE, PAUSE_MILLIS, ARCHIVE);
+    }
+
+    public InventoryLogService(int retentionDays, int chunkSize, long pauseMillis, boolean archive) {
+        if (retentionDays < 0) {
+            throw new IllegalArgumentException("Retention must not be negative");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.archive = archive;
+    }
+
+    private static String actionList() {
+        StringBuilder actions = new StringBuilder();
+        for (String action : InventoryLog.getValidActions()) {
+            actions.append(actions.length() == 0 ? "'" : ", '").append(action).append('\'');
+        }
+        return actions.toString();
+    }
+
+    // Compaction rewrites tables, so there is nothing to do for the in-memory storage engine
+    public static boolean isCompactionEnabled() {
+        return !Storage.isInMemory();
+    }
+
+    // Compacts every interval in the background when -DinventoryLog.compaction.intervalMinutes is set
+    public static synchronized void startScheduledCompaction() {
+        if (scheduler != null || INTERVAL_MINUTES <= 0 || !isCompactionEnabled()) {
+            return;
+        }
+        InventoryLogService service = new InventoryLogService();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "inventory-log-compaction");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                CompactionSummary summary = service.compact();
+                if (summary.getRows() > 0) {
+                    System.out.println(summary);
+                }
+            } catch (SQLException e) {
+                Metrics.recordFailure(e);
+                System.out.println("Error compacting inventory log: " + e.getMessage());
+            }
+        }, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    // Waits for a chunk in progress so it is not cut off when the pool closes
+    public static synchronized void stopScheduledCompaction() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    // Rows dated before this moment are compacted
+    public LocalDateTime getCutoff() {
+        return LocalDate.now().minusDays(retentionDays).atStartOfDay();
+    }
+
+    public CompactionSummary compact() throws SQLException {
+        Timestamp cutoff = Timestamp.valueOf(getCutoff());
+        CompactionSummary summary = new CompactionSummary(archive);
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            try {
+                long lastLogId = 0;
+                while (!Thread.currentThread().isInterrupted()) {
+                    conn.setAutoCommit(true);
+                    long chunkEnd = findChunkEnd(conn, lastLogId, cutoff);
+                    if (chunkEnd == 0) {
+                        break;
+                    }
+                    compactChunk(conn, lastLogId, chunkEnd, cutoff, summary);
+                    lastLogId = chunkEnd;
+                    if (pauseMillis > 0) {
+                        Thread.sleep(pauseMillis);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        summary.finish();
+        return summary;
+    }
+
+    // Highest log_id among the next chunkSize compactable rows, or 0 when none are left
+    private long findChunkEnd(Connection conn, long afterLogId, Timestamp cutoff) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(CHUNK_END_SQL)) {
+            stmt.setLong(1, afterLogId);
+            stmt.setTimestamp(2, cutoff);
+            stmt.setInt(3, chunkSize);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void compactChunk(Connection conn, long afterLogId, long chunkEnd, Timestamp cutoff,
+                              CompactionSummary summary) throws SQLException {
+        long start = System.nanoTime();
+        conn.setAutoCommit(false);
+        try {
+            executeChunk(conn, SUMMARISE_SQL, afterLogId, chunkEnd, cutoff);
+            if (archive) {
+                executeChunk(conn, ARCHIVE_SQL, afterLogId, chunkEnd, cutoff);
+            }
+            int rows = executeChunk(conn, DELETE_SQL, afterLogId, chunkEnd, cutoff);
+            conn.commit();
+            summary.chunks++;
+            summary.rows += rows;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            CHUNK_LATENCY.recordSince(start);
+        }
+    }
+
+    private static int executeChunk(Connection conn, String sql, long afterLogId, long chunkEnd, Timestamp cutoff) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, afterLogId);
+            stmt.setLong(2, chunkEnd);
+            stmt.setTimestamp(3, cutoff);
+            return stmt.executeUpdate();
+        }
+    }
+
+    // Movements per day and action type in [from, to), whether or not those days have been compacted yet
+    public List<DailyInventoryChange> getDailyChanges(int productId, LocalDate from, LocalDate to) throws SQLException {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date must not be after end date");
+        }
+        try (Transaction tx = storage.beginRead()) {
+            return storage.inventoryLog().findDailyChanges(tx, productId, from, to);
+        }
+    }
+
+    public void printDailyChanges(int productId, LocalDate from, LocalDate to) {
+        try {
+            List<DailyInventoryChange> changes = getDailyChanges(productId, from, to);
+            System.out.println("\nInventory changes for product " + productId + " from " + from + " to " + to);
+            System.out.println("------------------------");
+            for (DailyInventoryChange change : changes) {
+                System.out.printf("%s %-8s %+d (%d entries)\n", change.getDay(), change.getActionType(),
+                        change.getQuantityChange(), change.getEntryCount());
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            System.out.println("Error reading inventory changes: " + e.getMessage());
+        }
+    }
+
+    public static class CompactionSummary {
+        private final long startNanos = System.nanoTime();
+        private final boolean archived;
+        private volatile long elapsedNanos;
+        private volatile long chunks;
+        private volatile long rows;
+
+        CompactionSummary(boolean archived) {
+            this.archived = archived;
+        }
+
+        private void finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        // Raw rows removed from inventory_log
+        public long getRows() {
+            return rows;
+        }
+
+        public boolean isArchived() {
+            return archived;
+        }
+
+        public double getElapsedSeconds() {
+            long nanos = elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos;
+            return nanos / 1_000_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Compacted %d inventory log rows into daily summaries in %d chunks (%s) in %.1f s",
+                    rows, chunks, archived ? "raw rows archived" : "raw rows deleted", getElapsedSeconds());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.inventory.service;
+
+import com.inventory.util.DatabaseConnection;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+// Line-item CSV export of returns with their customer and product. Rows are streamed from a forward-only
+// cursor and encoded into one reusable buffer, so memory stays flat however many rows the period holds.
+// Files ending in .gz are gzip-compressed; output goes to a .part file that is renamed once complete.
+public class ReturnExportService {
+    private static final int FETCH_SIZE = Integer.getInteger("export.fetchSize", 5000);
+    private static final int WRITE_BUFFER_SIZE = Integer.getInteger("export.bufferBytes", 1 << 20);
+    private static final long PROGRESS_INTERVAL = Long.getLong("export.progressInterval", 100_000L);
+
+    private static final String HEADER = "return_id,order_id,created_date,status,reason,product_condition,"
+            + "customer_id,customer_name,customer_email,product_id,product_name,product_price\n";
+
+    private static final String EXPORT_SQL = "SELECT r.return_id, r.order_id, r.created_date, r.status, r.reason, r.product_condition, "
+            + "c.customer_id, c.name, c.email, p.product_id, p.name, p.price "
+            + "FROM returns r "
+            + "JOIN customers c ON c.customer_id = r.customer_id "
+            + "JOIN products p ON p.product_id = r.product_id "
+            + "WHERE r.created_date >= ? AND r.created_date < ? "
+            + "ORDER BY r.created_date";
+
+    private static final int COLUMNS = 12;
+
+    public ExportSummary export(LocalDateTime from, LocalDateTime to, Path target) throws IOException, SQLException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        ExportSummary summary = new ExportSummary();
+        boolean gzip = target.getFileName().toString().endsWith(".gz");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // With useCursorFetch on the connection URL, MySQL hands rows over FETCH_SIZE at a time
+            stmt.setFetchSize(FETCH_SIZE);
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+
+            try (ResultSet rs = stmt.executeQuery();
+                 WritableByteChannel channel = openChannel(partial, gzip)) {
+                CsvChannelWriter writer = new CsvChannelWriter(channel, gzip ? ByteBuffer.allocate(WRITE_BUFFER_SIZE)
+                        : ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE));
+                writer.append(HEADER);
+                while (rs.next()) {
+                    for (int column = 1; column <= COLUMNS; column++) {
+                        if (column > 1) {
+                            writer.append(',');
+                        }
+                        writer.appendField(rs.getString(column));
+                    }
+                    writer.append('\n');
+                    summary.rows++;
+                    if (summary.rows % PROGRESS_INTERVAL == 0) {
+                        writer.flush();
+                        summary.bytes = writer.written;
+                        System.out.printf("Exported %d rows (%.0f rows/sec)%n", summary.rows, summary.getRowsPerSecond());
+                    }
+                }
+                writer.flush();
+                summary.bytes = writer.written;
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        summary.finish();
+        return summary;
+    }
+
+    private static WritableByteChannel openChannel(Path path, boolean gzip) throws IOException {
+        if (gzip) {
+            return Channels.newChannel(new GZIPOutputStream(Files.newOutputStream(path), 64 * 1024));
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    // Encodes characters straight into the output buffer and drains it to the channel whenever it fills
+    private static class CsvChannelWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder field = new StringBuilder(256);
+        private long written;
+
+        CsvChannelWriter(WritableByteChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void append(char c) throws IOException {
+            if (c < 0x80) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                buffer.put((byte) c);
+            } else {
+                append(String.valueOf(c));
+            }
+        }
+
+        void append(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, true);
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    break;
+                } else {
+                    result.throwException();
+                }
+            }
+            encoder.reset();
+        }
+
+        // Quotes only values that need it; NULL becomes an empty field
+        void appendField(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                append(value);
+                return;
+            }
+            field.setLength(0);
+            field.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    field.append('"');
+                }
+                field.append(c);
+            }
+            field.append('"');
+            append(field);
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    public static class ExportSummary {
+        private final long startNanos = System.nanoTime();
+        private volatile long elapsedNanos;
+        private volatile long rows;
+        private volatile long bytes;
+
+        private void finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        // Bytes handed to the channel, before compression when exporting to .gz
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getElapsedSeconds() {
+            long nanos = elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos;
+            return nanos / 1_000_000_000.0;
+        }
+
+        public double getRowsPerSecond() {
+            double seconds = getElapsedSeconds();
+            return seconds == 0 ? 0 : rows / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Exported %d rows (%d KB) in %.1f s (%.0f rows/sec)",
+                    rows, bytes / 1024, getElapsedSeconds(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.inventory.service;
+
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRequest;
+import com.inventory.util.ReturnRecordParser;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+public class ReturnImportService {
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int MAX_RECORD_SIZE = 16 << 20;
+    private static final int QUEUE_DEPTH = 4;
+    private static final long PROGRESS_INTERVAL = 100_000;
+    private static final List<ImportRecord> END_OF_INPUT = new ArrayList<>();
+
+    private final ReturnService returnService;
+    private final int batchSize;
+
+    public ReturnImportService(ReturnService returnService, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.returnService = returnService;
+        this.batchSize = batchSize;
+    }
+
+    // The reader blocks on a small bounded queue while the database catches up, so memory stays flat for any file size
+    public ImportSummary importFile(Path source, Path rejectFile) throws IOException {
+        ReturnRecordParser parser = new ReturnRecordParser(ReturnRecordParser.detectFormat(source.getFileName().toString()));
+        BlockingQueue<List<ImportRecord>> queue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+        ImportSummary summary = new ImportSummary();
+        BatchWriter writer = new BatchWriter(queue, rejectFile, summary);
+        Thread writerThread = new Thread(writer, "return-import-writer");
+        writerThread.start();
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            readRecords(channel, parser, queue, writer);
+        } finally {
+            put(queue, END_OF_INPUT);
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (writer.failure instanceof IOException) {
+            throw (IOException) writer.failure;
+        } else if (writer.failure != null) {
+            throw new IOException("Import failed: " + writer.failure.getMessage(), writer.failure);
+        }
+        summary.finish();
+        return summary;
+    }
+
+    private void readRecords(FileChannel channel, ReturnRecordParser parser, BlockingQueue<List<ImportRecord>> queue,
+                             BatchWriter writer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        List<ImportRecord> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        boolean eof = false;
+
+        while (!eof && writer.failure == null) {
+            eof = channel.read(buffer) < 0;
+            byte[] bytes = buffer.array();
+            int limit = buffer.position();
+            int lineStart = 0;
+
+            for (int i = 0; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    lineNumber++;
+                    batch = addRecord(parser, bytes, lineStart, i, lineNumber, batch, queue);
+                    lineStart = i + 1;
+                }
+            }
+            if (eof && lineStart < limit) {
+                lineNumber++;
+                batch = addRecord(parser, bytes, lineStart, limit, lineNumber, batch, queue);
+                lineStart = limit;
+            }
+
+            int remaining = limit - lineStart;
+            if (remaining == buffer.capacity()) {
+                if (buffer.capacity() >= MAX_RECORD_SIZE) {
+                    throw new IOException("Record at line " + (lineNumber + 1) + " exceeds " + MAX_RECORD_SIZE + " bytes");
+                }
+                ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                grown.put(bytes, 0, remaining);
+                buffer = grown;
+            } else {
+                System.arraycopy(bytes, lineStart, bytes, 0, remaining);
+                buffer.position(remaining);
+            }
+        }
+        if (!batch.isEmpty()) {
+            put(queue, batch);
+        }
+    }
+
+    private List<ImportRecord> addRecord(ReturnRecordParser parser, byte[] bytes, int start, int end, long lineNumber,
+                                         List<ImportRecord> batch, BlockingQueue<List<ImportRecord>> queue) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start || (lineNumber == 1 && parser.isHeader(bytes, start, end))) {
+            return batch;
+        }
+        ReturnRequest request = parser.parse(bytes, start, end);
+        String error = request == null
+                ? parser.getError() + ": " + new String(bytes, start, end - start, StandardCharsets.UTF_8)
+                : null;
+        batch.add(new ImportRecord(lineNumber, request, error));
+        if (batch.size() < batchSize) {
+            return batch;
+        }
+        put(queue, batch);
+        return new ArrayList<>(batchSize);
+    }
+
+    private void put(BlockingQueue<List<ImportRecord>> queue, List<ImportRecord> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        }
+    }
+
+    private class BatchWriter implements Runnable {
+        private final BlockingQueue<List<ImportRecord>> queue;
+        private final Path rejectFile;
+        private final ImportSummary summary;
+        private volatile Exception failure;
+
+        BatchWriter(BlockingQueue<List<ImportRecord>> queue, Path rejectFile, ImportSummary summary) {
+            this.queue = queue;
+            this.rejectFile = rejectFile;
+            this.summary = summary;
+        }
+
+        @Override
+        public void run() {
+            boolean endReached = false;
+            try (BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+                rejects.write("line,error,order_id,customer_id,product_id,reason,condition");
+                rejects.newLine();
+                while (true) {
+                    List<ImportRecord> batch = queue.take();
+                    if (batch == END_OF_INPUT) {
+                        endReached = true;
+                        break;
+                    }
+                    writeBatch(batch, rejects);
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+                if (!endReached) {
+                    drain();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void drain() {
+            try {
+                while (queue.take() != END_OF_INPUT) {
+                    // discard batches so the reader can observe the failure and stop
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void writeBatch(List<ImportRecord> batch, BufferedWriter rejects) throws IOException {
+            List<ReturnRequest> requests = new ArrayList<>(batch.size());
+            List<ImportRecord> submitted = new ArrayList<>(batch.size());
+            for (ImportRecord record : batch) {
+                if (record.request == null) {
+                    writeReject(rejects, record.lineNumber, record.error, null);
+                } else {
+                    requests.add(record.request);
+                    submitted.add(record);
+                }
+            }
+
+            List<ReturnOutcome> outcomes = requests.isEmpty()
+                    ? new ArrayList<>() : returnService.processReturnsBatch(requests, batchSize);
+            for (ReturnOutcome outcome : outcomes) {
+                if (outcome.isSuccess()) {
+                    summary.accepted++;
+                } else {
+                    writeReject(rejects, submitted.get(outcome.getIndex()).lineNumber,
+                            outcome.getMessage(), outcome.getRequest());
+                }
+            }
+
+            long before = summary.getTotal() - batch.size();
+            if (before / PROGRESS_INTERVAL != summary.getTotal() / PROGRESS_INTERVAL) {
+                System.out.printf("Imported %d rows (%.0f rows/sec)%n", summary.getTotal(), summary.getRowsPerSecond());
+            }
+        }
+
+        private void writeReject(BufferedWriter rejects, long lineNumber, String error, ReturnRequest request) throws IOException {
+            summary.rejected++;
+            rejects.write(Long.toString(lineNumber));
+            rejects.write(',');
+            rejects.write(quote(error));
+            if (request != null) {
+                rejects.write(',' + quote(request.getOrderId()) + ',' + quote(request.getCustomerId()) + ','
+                        + quote(request.getProductId()) + ',' + quote(request.getReason()) + ','
+                        + quote(request.getCondition()));
+            } else {
+                rejects.write(",,,,,");
+            }
+            rejects.newLine();
+        }
+
+        private String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static class ImportRecord {
+        private final long lineNumber;
+        private final ReturnRequest request;
+        private final String error;
+
+        ImportRecord(long lineNumber, ReturnRequest request, String error) {
+            this.lineNumber = lineNumber;
+            this.request = request;
+            this.error = error;
+        }
+    }
+
+    public static class ImportSummary {
+        private final long startNanos = System.nanoTime();
+        private volatile long elapsedNanos;
+        private volatile long accepted;
+        private volatile long rejected;
+
+        private void finish() {
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getTotal() {
+            return accepted + rejected;
+        }
+
+        public double getElapsedSeconds() {
+            long nanos = elapsedNanos > 0 ? elapsedNanos : System.nanoTime() - startNanos;
+            return nanos / 1_000_000_000.0;
+        }
+
+        public double getRowsPerSecond() {
+            double seconds = getElapsedSeconds();
+            return seconds == 0 ? 0 : getTotal() / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Imported %d rows in %.1f s (%.0f rows/sec): %d accepted, %d rejected",
+                    getTotal(), getElapsedSeconds(), getRowsPerSecond(), accepted, rejected);
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.inventory.service;
+
+import com.inventory.model.ReturnRequest;
+import com.inventory.model.ReturnStatus;
+import com.inventory.repository.Storage;
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.IntIntHashMap;
+import com.inventory.util.JsonWriter;
+import com.inventory.util.SegmentedJournal;
+import com.inventory.validation.Validators;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Durable intake: returns are acknowledged once they are in the local journal, and a drainer thread
+// applies them to the database in batches. The applied sequence is stored in journal_checkpoint in the
+// same transaction as the rows, so replay after a crash resumes exactly where the database left off.
+public class ReturnIntakeJournal {
+    private static final String DIRECTORY = System.getProperty("journal.dir");
+    private static final String NAME = System.getProperty("journal.name", "intake");
+    private static final int SEGMENT_BYTES = Integer.getInteger("journal.segmentBytes", 64 << 20);
+    private static final int BATCH_SIZE = Integer.getInteger("journal.batchSize", 500);
+    private static final boolean SYNC_EVERY_APPEND = Boolean.getBoolean("journal.syncEveryAppend");
+    private static final long SYNC_INTERVAL_MILLIS = Long.getLong("journal.syncIntervalMillis", 100L);
+    private static final long IDLE_POLL_MILLIS = 200;
+    private static final long MAX_RETRY_MILLIS = 30000;
+    private static final byte ENTRY_VERSION = 1;
+
+    private static final String INSERT_SQL = "INSERT INTO returns (order_id, customer_id, product_id, reason, product_condition, status, created_date) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String CHECKPOINT_SQL = "INSERT INTO journal_checkpoint (journal_name, last_sequence, updated_at) VALUES (?, ?, NOW()) "
+            + "ON DUPLICATE KEY UPDATE last_sequence = VALUES(last_sequence), updated_at = VALUES(updated_at)";
+
+    private static volatile ReturnIntakeJournal instance;
+
+    private final SegmentedJournal journal;
+    private final String name;
+    private final int batchSize;
+    private final Path rejectFile;
+    private final Thread drainer;
+    private final ScheduledExecutorService syncer;
+    private final Object signal = new Object();
+    private volatile boolean running = true;
+    private volatile long appliedSequence = -1;
+
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong failedBatchCount = new AtomicLong();
+    private final AtomicLong skippedStockUpdateCount = new AtomicLong();
+
+    public ReturnIntakeJournal(Path directory, String name, int segmentBytes, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.journal = new SegmentedJournal(directory, segmentBytes);
+        this.name = name;
+        this.batchSize = batchSize;
+        this.rejectFile = directory.resolve(name + ".rejected.ndjson");
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!SYNC_EVERY_APPEND) {
+            syncer.scheduleWithFixedDelay(journal::force, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        this.drainer = new Thread(this::drainLoop, "journal-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    // The drainer applies entries over JDBC, so the journal is off with the in-memory storage engine
+    public static boolean isEnabled() {
+        return DIRECTORY != null && !DIRECTORY.isEmpty() && !Storage.isInMemory();
+    }
+
+    public static ReturnIntakeJournal getInstance() {
+        ReturnIntakeJournal current = instance;
+        if (current == null) {
+            synchronized (ReturnIntakeJournal.class) {
+                current = instance;
+                if (current == null) {
+                    try {
+                        current = new ReturnIntakeJournal(Paths.get(DIRECTORY), NAME, SEGMENT_BYTES, BATCH_SIZE);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not open intake journal in " + DIRECTORY + ": " + e.getMessage(), e);
+                    }
+                    Runtime.getRuntime().addShutdownHook(new Thread(ReturnIntakeJournal::shutdownInstance, "journal-shutdown"));
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    // Returns the journal sequence once the entry is durable enough to acknowledge
+    public long append(ReturnRequest request, ReturnStatus status, int stockDelta) throws IOException {
+        long sequence = journal.append(encode(request, status, stockDelta, System.currentTimeMillis()));
+        if (SYNC_EVERY_APPEND) {
+            journal.force();
+        }
+        if (sequence - appliedSequence >= batchSize) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+        return sequence;
+    }
+
+    private static byte[] encode(ReturnRequest request, ReturnStatus status, int stockDelta, long acceptedAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ENTRY_VERSION);
+            out.writeLong(acceptedAt);
+            writeNullable(out, request.getOrderId());
+            writeNullable(out, request.getCustomerId());
+            writeNullable(out, request.getProductId());
+            writeNullable(out, request.getReason());
+            writeNullable(out, request.getCondition());
+            out.writeUTF(status.name());
+            out.writeInt(stockDelta);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static class Entry {
+        private final long sequence;
+        private final long acceptedAt;
+        private final ReturnRequest request;
+        private final ReturnStatus status;
+        private final int stockDelta;
+
+        Entry(long sequence, byte[] payload) throws IOException {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                byte version = in.readByte();
+                if (version != ENTRY_VERSION) {
+                    throw new IOException("Unsupported journal entry version " + version);
+                }
+                this.sequence = sequence;
+                this.acceptedAt = in.readLong();
+                this.request = new ReturnRequest(readNullable(in), readNullable(in), readNullable(in), readNullable(in), readNullable(in));
+                this.status = ReturnStatus.valueOf(in.readUTF());
+                this.stockDelta = in.readInt();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        long backoff = IDLE_POLL_MILLIS;
+        while (running) {
+            try {
+                if (appliedSequence < 0) {
+                    appliedSequence = loadCheckpoint();
+                    journal.advanceTo(appliedSequence);
+                }
+                int applied = drainOnce();
+                backoff = IDLE_POLL_MILLIS;
+                if (applied == 0) {
+                    journal.deleteThrough(appliedSequence);
+                    pause(IDLE_POLL_MILLIS);
+                }
+            } catch (SQLException e) {
+                failedBatchCount.incrementAndGet();
+                System.out.println("Intake journal drain failed, retrying in " + backoff + " ms: " + e.getMessage());
+                pause(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void pause(long millis) {
+        synchronized (signal) {
+            if (running) {
+                try {
+                    signal.wait(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private long loadCheckpoint() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT last_sequence FROM journal_checkpoint WHERE journal_name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    // Applies the next batch after the checkpoint; returns how many entries it consumed
+    private int drainOnce() throws SQLException {
+        List<SegmentedJournal.Record> records = journal.read(appliedSequence, batchSize);
+        if (records.isEmpty()) {
+            return 0;
+        }
+        List<Entry> entries = new ArrayList<>(records.size());
+        List<String> rejections = new ArrayList<>();
+        IntIntHashMap stockDeltas = new IntIntHashMap();
+        for (SegmentedJournal.Record record : records) {
+            try {
+                entries.add(new Entry(record.getSequence(), record.getPayload()));
+            } catch (IOException | IllegalArgumentException e) {
+                rejections.add(new JsonWriter().beginObject().field("sequence", record.getSequence())
+                        .field("error", "Unreadable journal entry: " + e.getMessage()).endObject().toString());
+            }
+        }
+        long lastSequence = records.get(records.size() - 1).getSequence();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                applyEntries(conn, entries, rejections, stockDeltas);
+                saveCheckpoint(conn, lastSequence);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        appliedSequence = lastSequence;
+        if (StockLedger.isEnabled()) {
+            StockLedger ledger = StockLedger.getInstance();
+            stockDeltas.forEach(ledger::apply);
+        }
+        appliedCount.addAndGet(records.size() - rejections.size());
+        if (!rejections.isEmpty()) {
+            rejectedCount.addAndGet(rejections.size());
+            writeRejections(rejections);
+        }
+        return records.size();
+    }
+
+    private void applyEntries(Connection conn, List<Entry> entries, List<String> rejections, IntIntHashMap stockDeltas) throws SQLException {
+        ExistenceCache existence = ExistenceCache.getInstance();
+        List<Entry> valid = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            int customerId = Validators.parsePositiveId(entry.request.getCustomerId());
+            int productId = Validators.parsePositiveId(entry.request.getProductId());
+            if (customerId <= 0 || !existence.exists(conn, ExistenceCache.Entity.CUSTOMER, customerId)) {
+                rejections.add(rejection(entry, "Customer not found"));
+            } else if (productId <= 0 || !existence.exists(conn, ExistenceCache.Entity.PRODUCT, productId)) {
+                rejections.add(rejection(entry, "Product not found"));
+            } else {
+                valid.add(entry);
+            }
+        }
+        valid = withoutDuplicates(conn, valid, rejections);
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        DuplicateReturnGuard guard = DuplicateReturnGuard.getInstance();
+        List<Entry> inserted = valid;
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            Savepoint batchSavepoint = conn.setSavepoint();
+            try {
+                for (Entry entry : valid) {
+                    bindEntry(insert, entry);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                String[] orderIds = new String[valid.size()];
+                int[] productIds = new int[valid.size()];
+                int[] returnIds = new int[valid.size()];
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    for (int i = 0; i < valid.size() && keys.next(); i++) {
+                        returnIds[i] = keys.getInt(1);
+                    }
+                }
+                for (int i = 0; i < valid.size(); i++) {
+                    orderIds[i] = valid.get(i).request.getOrderId();
+                    productIds[i] = Validators.parsePositiveId(valid.get(i).request.getProductId());
+                }
+                guard.claimAll(conn, orderIds, productIds, returnIds);
+                conn.releaseSavepoint(batchSavepoint);
+            } catch (SQLException e) {
+                // Retry row by row so one bad entry is rejected on its own instead of blocking the journal
+                conn.rollback(batchSavepoint);
+                insert.clearBatch();
+                inserted = new ArrayList<>(valid.size());
+                for (Entry entry : valid) {
+                    Savepoint savepoint = conn.setSavepoint();
+                    try {
+                        bindEntry(insert, entry);
+                        insert.executeUpdate();
+                        try (ResultSet keys = insert.getGeneratedKeys()) {
+                            guard.claim(conn, entry.request.getOrderId(), Validators.parsePositiveId(entry.request.getProductId()),
+                                    keys.next() ? keys.getInt(1) : 0);
+                        }
+                        conn.releaseSavepoint(savepoint);
+                        inserted.add(entry);
+                    } catch (SQLException rowError) {
+                        conn.rollback(savepoint);
+                        rejections.add(rejection(entry, DuplicateReturnGuard.isDuplicateKey(rowError)
+                                ? "Duplicate of an order line already returned" : rowError.getMessage()));
+                    }
+                }
+            }
+        }
+
+        Map<String, Integer> createdPerBucket = new LinkedHashMap<>();
+        for (Entry entry : inserted) {
+            String bucket = entry.status.name() + '@' + entry.acceptedAt / 3_600_000L * 3_600_000L;
+            createdPerBucket.merge(bucket, 1, Integer::sum);
+            if (entry.stockDelta != 0) {
+                stockDeltas.addTo(Validators.parsePositiveId(entry.request.getProductId()), entry.stockDelta);
+            }
+        }
+        for (Map.Entry<String, Integer> bucket : createdPerBucket.entrySet()) {
+            String key = bucket.getKey();
+            int at = key.indexOf('@');
+            ReturnRollupService.recordCreated(conn, ReturnStatus.valueOf(key.substring(0, at)),
+                    new Timestamp(Long.parseLong(key.substring(at + 1))), bucket.getValue());
+        }
+        if (!stockDeltas.isEmpty()) {
+            applyStockDeltas(conn, stockDeltas);
+        }
+    }
+
+    // Retried order lines are dropped with a rejection naming the original, whether it is already in the
+    // database or earlier in this same batch
+    private List<Entry> withoutDuplicates(Connection conn, List<Entry> entries, List<String> rejections) throws SQLException {
+        DuplicateReturnGuard guard = DuplicateReturnGuard.getInstance();
+        Map<String, Long> firstByKey = new HashMap<>();
+        List<Entry> unique = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            String orderId = entry.request.getOrderId();
+            if (!DuplicateReturnGuard.isKeyed(orderId)) {
+                unique.add(entry);
+                continue;
+            }
+            int productId = Validators.parsePositiveId(entry.request.getProductId());
+            int original = guard.findOriginal(conn, orderId, productId);
+            Long firstSequence = original == DuplicateReturnGuard.NOT_FOUND
+                    ? firstByKey.putIfAbsent(orderId + '\u0000' + productId, entry.sequence) : null;
+            if (original != DuplicateReturnGuard.NOT_FOUND) {
+                rejections.add(rejection(entry, "Duplicate of return " + original));
+            } else if (firstSequence != null) {
+                rejections.add(rejection(entry, "Duplicate of journal sequence " + firstSequence));
+            } else {
+                unique.add(entry);
+            }
+        }
+        return unique;
+    }
+
+    private void bindEntry(PreparedStatement insert, Entry entry) throws SQLException {
+        insert.setString(1, entry.request.getOrderId());
+        insert.setInt(2, Validators.parsePositiveId(entry.request.getCustomerId()));
+        insert.setInt(3, Validators.parsePositiveId(entry.request.getProductId()));
+        insert.setString(4, entry.request.getReason());
+        insert.setString(5, entry.request.getCondition());
+        insert.setString(6, entry.status.toString());
+        insert.setTimestamp(7, new Timestamp(entry.acceptedAt));
+    }
+
+    // A product deleted between intake and drain gets no inventory_log row, since its stock never changed
+    private void applyStockDeltas(Connection conn, IntIntHashMap stockDeltas) throws SQLException {
+        int[] productIds = new int[stockDeltas.size()];
+        int[] deltas = new int[stockDeltas.size()];
+        int[] next = new int[1];
+        stockDeltas.forEach((productId, delta) -> {
+            if (delta != 0) {
+                productIds[next[0]] = productId;
+                deltas[next[0]] = delta;
+                next[0]++;
+            }
+        });
+        int count = next[0];
+        if (count == 0) {
+            return;
+        }
+
+        String updateSql = "UPDATE products SET current_stock = current_stock + ? WHERE product_id = ?";
+        String logSql = "INSERT INTO inventory_log (product_id, quantity_change, action_type) VALUES (?, ?, 'RETURN')";
+        try (PreparedStatement update = conn.prepareStatement(updateSql);
+             PreparedStatement log = conn.prepareStatement(logSql)) {
+            for (int i = 0; i < count; i++) {
+                update.setInt(1, deltas[i]);
+                update.setInt(2, productIds[i]);
+                update.addBatch();
+            }
+            int[] updated = update.executeBatch();
+            boolean logged = false;
+            for (int i = 0; i < count; i++) {
+                if (updated[i] == 0) {
+                    skippedStockUpdateCount.incrementAndGet();
+                    continue;
+                }
+                log.setInt(1, productIds[i]);
+                log.setInt(2, deltas[i]);
+                log.addBatch();
+                logged = true;
+            }
+            if (logged) {
+                log.executeBatch();
+            }
+        }
+    }
+
+    private void saveCheckpoint(Connection conn, long sequence) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(CHECKPOINT_SQL)) {
+            stmt.setString(1, name);
+            stmt.setLong(2, sequence);
+            stmt.executeUpdate();
+        }
+    }
+
+    private String rejection(Entry entry, String error) {
+        ReturnRequest request = entry.request;
+        return new JsonWriter().beginObject()
+                .field("sequence", entry.sequence)
+                .field("order_id", request.getOrderId())
+                .field("customer_id", request.getCustomerId())
+                .field("product_id", request.getProductId())
+                .field("reason", request.getReason())
+                .field("condition", request.getCondition())
+                .field("error", error)
+                .endObject().toString();
+    }
+
+    // Written after the commit, so a crash in between can repeat a rejection line but never lose one
+    private void writeRejections(List<String> rejections) {
+        StringBuilder lines = new StringBuilder();
+        for (String rejection : rejections) {
+            lines.append(rejection).append('\n');
+        }
+        try {
+            Files.write(rejectFile, lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Error writing journal rejections to " + rejectFile + ": " + e.getMessage());
+        }
+    }
+
+    // Waits until everything appended so far is in the database; returns false on timeout
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long target = journal.getLastSequence();
+        while (appliedSequence < target) {
+            if (System.currentTimeMillis() >= deadline || !drainer.isAlive()) {
+                return false;
+            }
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    // Gives the drainer a short window to catch up; whatever is left is replayed on the next start
+    public void shutdown() {
+        try {
+            if (!awaitDrained(5000)) {
+                System.out.println("Intake journal closed with " + getBacklog() + " entries still to apply");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        try {
+            drainer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        syncer.shutdownNow();
+        journal.close();
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public long getLastSequence() {
+        return journal.getLastSequence();
+    }
+
+    public long getBacklog() {
+        return Math.max(0, journal.getLastSequence() - Math.max(0, appliedSequence));
+    }
+
+    public long getAppliedCount() {
+        return appliedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+
+    // Stock increments dropped because their product no longer exists
+    public long getSkippedStockUpdateCount() {
+        return skippedStockUpdateCount.get();
+    }
+}
@@ -0,0 +1,104 @@
+package com.inventory.service;
+
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRequest;
+import com.inventory.util.DatabaseConnection;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReturnProcessingEngine implements AutoCloseable {
+    private final ReturnService returnService;
+    private final ExecutorService executor;
+    private final Semaphore concurrencyLimit;
+    private final boolean virtualThreads;
+
+    public ReturnProcessingEngine(ReturnService returnService) {
+        this(returnService, DatabaseConnection.getPool().getMaxSize());
+    }
+
+    public ReturnProcessingEngine(ReturnService returnService, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        this.returnService = returnService;
+        this.concurrencyLimit = new Semaphore(maxConcurrency);
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(maxConcurrency, new EngineThreadFactory());
+    }
+
+    // Virtual threads need Java 21; on older runtimes a bounded platform pool is used instead
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public CompletableFuture<ReturnOutcome> submit(ReturnRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                concurrencyLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return ReturnOutcome.rejected(0, request, "Interrupted before processing");
+            }
+            try {
+                return returnService.processReturn(request);
+            } finally {
+                concurrencyLimit.release();
+            }
+        }, executor);
+    }
+
+    public List<CompletableFuture<ReturnOutcome>> submitAll(List<ReturnRequest> requests) {
+        List<CompletableFuture<ReturnOutcome>> futures = new ArrayList<>(requests.size());
+        for (ReturnRequest request : requests) {
+            futures.add(submit(request));
+        }
+        return futures;
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getAvailablePermits() {
+        return concurrencyLimit.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class EngineThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "return-engine-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.inventory.service;
+
+import com.inventory.repository.Storage;
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.IntIntHashMap;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Returns per customer over a sliding window of days, so the return path can flag heavy returners without
+// a COUNT(*) per return. Each customer gets a ring of one short counter per day plus a running total;
+// buckets that fall out of the window are cleared lazily when the customer is next touched. Warmed from
+// the returns table on first use; a customer's slot is kept for the life of the process.
+public class ReturnRateMonitor {
+    private static final boolean ENABLED = Boolean.getBoolean("abuse.detection");
+    private static final int WINDOW_DAYS = Integer.getInteger("abuse.windowDays", 30);
+    private static final int MAX_RETURNS = Integer.getInteger("abuse.maxReturns", 10);
+    private static final int WARM_FETCH_SIZE = 10000;
+    private static final int STRIPES = 16;
+
+    private static volatile ReturnRateMonitor instance;
+
+    private final int windowDays;
+    private final int maxReturns;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ReturnRateMonitor(int windowDays, int maxReturns) {
+        if (windowDays <= 0) {
+            throw new IllegalArgumentException("Window must be at least one day");
+        }
+        this.windowDays = windowDays;
+        this.maxReturns = maxReturns;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(windowDays);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public static ReturnRateMonitor getInstance() {
+        ReturnRateMonitor current = instance;
+        if (current == null) {
+            synchronized (ReturnRateMonitor.class) {
+                current = instance;
+                if (current == null) {
+                    current = new ReturnRateMonitor(WINDOW_DAYS, MAX_RETURNS);
+                    // The in-memory storage engine has no history to warm from beyond what it was loaded with
+                    if (!Storage.isInMemory()) {
+                        try (Connection conn = DatabaseConnection.getConnection()) {
+                            current.warm(conn);
+                        } catch (SQLException e) {
+                            System.out.println("Error warming return rate monitor: " + e.getMessage());
+                        }
+                    }
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Loads per-day counts for the current window; returns how many customers were loaded
+    public int warm(Connection conn) throws SQLException {
+        LocalDate today = LocalDate.now();
+        String sql = "SELECT customer_id, CAST(created_date AS DATE) AS return_day, COUNT(*) FROM returns "
+                + "WHERE created_date >= ? GROUP BY customer_id, CAST(created_date AS DATE)";
+        IntIntHashMap customers = new IntIntHashMap();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(WARM_FETCH_SIZE);
+            stmt.setDate(1, Date.valueOf(today.minusDays(windowDays - 1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int customerId = rs.getInt(1);
+                    long day = rs.getDate(2).toLocalDate().toEpochDay();
+                    if (customerId > 0 && day <= today.toEpochDay()) {
+                        stripeFor(customerId).add(customerId, (int) day, rs.getInt(3));
+                        customers.put(customerId, 1);
+                    }
+                }
+            }
+        }
+        return customers.size();
+    }
+
+    private Stripe stripeFor(int customerId) {
+        int h = customerId * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    // Counts one return for the customer today and returns their total in the window, including it
+    public int record(int customerId) {
+        if (customerId <= 0) {
+            return 0;
+        }
+        return stripeFor(customerId).add(customerId, today(), 1);
+    }
+
+    public int getCount(int customerId) {
+        if (customerId <= 0) {
+            return 0;
+        }
+        return stripeFor(customerId).count(customerId, today());
+    }
+
+    // True when one more return would take the customer past abuse.maxReturns
+    public boolean wouldExceed(int customerId) {
+        return getCount(customerId) + 1 > maxReturns;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    public int getMaxReturns() {
+        return maxReturns;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private static class Stripe {
+        private final int windowDays;
+        private final IntIntHashMap slots = new IntIntHashMap();
+        private short[] buckets;
+        private int[] lastDays;
+        private int[] totals;
+        private int size;
+
+        Stripe(int windowDays) {
+            this.windowDays = windowDays;
+            this.buckets = new short[16 * windowDays];
+            this.lastDays = new int[16];
+            this.totals = new int[16];
+        }
+
+        synchronized int add(int customerId, int day, int count) {
+            int slot = slots.get(customerId, -1);
+            if (slot < 0) {
+                slot = allocate(customerId, day);
+            }
+            // Warm-up can deliver days older than the newest bucket; they are added in place
+            if (day > lastDays[slot]) {
+                advance(slot, day);
+            } else if (day <= lastDays[slot] - windowDays) {
+                return totals[slot];
+            }
+            int bucket = slot * windowDays + Math.floorMod(day, windowDays);
+            int added = Math.min(count, Short.MAX_VALUE - buckets[bucket]);
+            buckets[bucket] += added;
+            totals[slot] += added;
+            return totals[slot];
+        }
+
+        synchronized int count(int customerId, int day) {
+            int slot = slots.get(customerId, -1);
+            if (slot < 0) {
+                return 0;
+            }
+            if (day > lastDays[slot]) {
+                advance(slot, day);
+            }
+            return totals[slot];
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        // Clears the buckets for days after the customer's last one, up to and including day
+        private void advance(int slot, int day) {
+            int base = slot * windowDays;
+            int stale = Math.min(day - lastDays[slot], windowDays);
+            for (int i = 1; i <= stale; i++) {
+                int bucket = base + Math.floorMod(lastDays[slot] + i, windowDays);
+                totals[slot] -= buckets[bucket];
+                buckets[bucket] = 0;
+            }
+            lastDays[slot] = day;
+        }
+
+        private int allocate(int customerId, int day) {
+            if (size == totals.length) {
+                int capacity = size * 2;
+                buckets = Arrays.copyOf(buckets, capacity * windowDays);
+                lastDays = Arrays.copyOf(lastDays, capacity);
+                totals = Arrays.copyOf(totals, capacity);
+            }
+            int slot = size++;
+            lastDays[slot] = day;
+            slots.put(customerId, slot);
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.inventory.service;
+
+import com.inventory.model.ReturnStatus;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-hour, per-status return counters kept in step with the returns table, so reports sum a
+// handful of buckets instead of scanning every return in the period. The table comes from migration V3.
+public class ReturnRollupService {
+    private static final String HOUR_BUCKET = "DATE_FORMAT(%s, '%%Y-%%m-%%d %%H:00:00')";
+
+    private static final String INCREMENT_FOR_RETURNS_SQL = "INSERT INTO return_status_hourly (bucket_start, status, return_count) "
+            + "SELECT " + String.format(HOUR_BUCKET, "created_date") + " AS bucket, status, COUNT(*) FROM returns "
+            + "WHERE return_id IN (%s) GROUP BY bucket, status "
+            + "ON DUPLICATE KEY UPDATE return_count = return_count + VALUES(return_count)";
+
+    private static final String INCREMENT_AT_SQL = "INSERT INTO return_status_hourly (bucket_start, status, return_count) "
+            + "VALUES (" + String.format(HOUR_BUCKET, "?") + ", ?, ?) "
+            + "ON DUPLICATE KEY UPDATE return_count = return_count + VALUES(return_count)";
+
+    private static final String INCREMENT_FOR_RETURN_SQL = "INSERT INTO return_status_hourly (bucket_start, status, return_count) "
+            + "SELECT " + String.format(HOUR_BUCKET, "created_date") + ", ?, ? FROM returns WHERE return_id = ? "
+            + "ON DUPLICATE KEY UPDATE return_count = return_count + VALUES(return_count)";
+
+    private ReturnRollupService() {
+    }
+
+    // Counts just-inserted returns in the bucket of their own created_date, so a return inserted just before an
+    // hour boundary is not counted in the next hour. Runs inside the caller's transaction so the rollup commits
+    // or rolls back with them.
+    public static void recordCreated(Connection conn, int... returnIds) throws SQLException {
+        if (returnIds.length == 0) {
+            return;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < returnIds.length; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        String sql = INCREMENT_FOR_RETURNS_SQL.replace("%s", placeholders);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < returnIds.length; i++) {
+                stmt.setInt(i + 1, returnIds[i]);
+            }
+            stmt.executeUpdate();
+        }
+    }
+
+    // Counts returns created at an earlier time, such as journaled intake applied after the fact
+    public static void recordCreated(Connection conn, ReturnStatus status, Timestamp createdAt, int count) throws SQLException {
+        if (count == 0) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INCREMENT_AT_SQL)) {
+            stmt.setTimestamp(1, createdAt);
+            stmt.setString(2, status.toString());
+            stmt.setInt(3, count);
+            stmt.executeUpdate();
+        }
+    }
+
+    // Moves one return between status counters in the bucket of the hour it was created
+    public static void recordTransition(Connection conn, int returnId, ReturnStatus from, ReturnStatus to) throws SQLException {
+        if (from == to) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INCREMENT_FOR_RETURN_SQL)) {
+            stmt.setString(1, from.toString());
+            stmt.setInt(2, -1);
+            stmt.setInt(3, returnId);
+            stmt.addBatch();
+            stmt.setString(1, to.toString());
+            stmt.setInt(2, 1);
+            stmt.setInt(3, returnId);
+            stmt.addBatch();
+            stmt.executeBatch();
+        }
+    }
+
+    public static Map<String, Long> countsForLast(Connection conn, String timeFrame) throws SQLException {
+        String sql = "SELECT status, SUM(return_count) AS count FROM return_status_hourly "
+                + "WHERE bucket_start >= " + String.format(HOUR_BUCKET, "TIMESTAMPADD(" + timeFrame + ", -1, NOW())")
+                + " GROUP BY status";
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                counts.put(rs.getString("status"), rs.getLong("count"));
+            }
+        }
+        return counts;
+    }
+
+    public static int rebuild(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM return_status_hourly");
+            int buckets = stmt.executeUpdate("INSERT INTO return_status_hourly (bucket_start, status, return_count) "
+                    + "SELECT " + String.format(HOUR_BUCKET, "created_date") + " AS bucket, status, COUNT(*) "
+                    + "FROM returns GROUP BY bucket, status");
+            conn.commit();
+            return buckets;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Returns one line per bucket/status whose rollup count differs from the raw returns table
+    public static List<String> checkConsistency(Connection conn) throws SQLException {
+        Map<String, long[]> buckets = new TreeMap<>();
+        String rawSql = "SELECT " + String.format(HOUR_BUCKET, "created_date") + " AS bucket, status, COUNT(*) AS count "
+                + "FROM returns GROUP BY bucket, status";
+        String rollupSql = "SELECT bucket_start AS bucket, status, return_count AS count FROM return_status_hourly";
+
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(rawSql)) {
+                while (rs.next()) {
+                    bucketCounts(buckets, rs)[0] = rs.getLong("count");
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(rollupSql)) {
+                while (rs.next()) {
+                    bucketCounts(buckets, rs)[1] = rs.getLong("count");
+                }
+            }
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : buckets.entrySet()) {
+            long[] counts = entry.getValue();
+            if (counts[0] != counts[1]) {
+                mismatches.add(String.format("%s: returns=%d rollup=%d", entry.getKey(), counts[0], counts[1]));
+            }
+        }
+        return mismatches;
+    }
+
+    private static long[] bucketCounts(Map<String, long[]> buckets, ResultSet rs) throws SQLException {
+        String key = rs.getTimestamp("bucket").toLocalDateTime() + " " + rs.getString("status");
+        return buckets.computeIfAbsent(key, k -> new long[2]);
+    }
+}
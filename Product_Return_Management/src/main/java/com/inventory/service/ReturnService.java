@@ -1,49 +1,118 @@
 package com.inventory.service;
 
 import com.inventory.util.DatabaseConnection;
+import com.inventory.analytics.HeavyHitter;
+import com.inventory.analytics.ReturnHeavyHitters;
 import com.inventory.exception.InvalidReturnException;
+import com.inventory.metrics.LatencyHistogram;
+import com.inventory.metrics.Metrics;
+import com.inventory.model.ReturnHistoryPage;
+import com.inventory.model.ReturnHistoryQuery;
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRecord;
+import com.inventory.model.ReturnRequest;
+import com.inventory.model.ReturnStatus;
+import com.inventory.repository.JdbcStorageEngine;
+import com.inventory.repository.ReturnRepository;
+import com.inventory.repository.Storage;
+import com.inventory.repository.StorageEngine;
+import com.inventory.repository.Transaction;
+import com.inventory.validation.ReturnValidator;
+import com.inventory.validation.Validators;
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 
 public class ReturnService {
-    private Connection conn;
+    private static final int DEFAULT_BATCH_CHUNK_SIZE = 500;
+    private static final String INSERT_RETURN_SQL = "INSERT INTO returns (order_id, customer_id, product_id, reason, product_condition, status) VALUES (?, ?, ?, ?, ?, 'PENDING')";
 
-    public ReturnService() throws SQLException {
-        this.conn = DatabaseConnection.getConnection();
-    }
+    private static final LatencyHistogram PROCESS_NEW_RETURN_LATENCY = Metrics.histogram("ReturnService.processNewReturn");
+    private static final LatencyHistogram PROCESS_RETURN_LATENCY = Metrics.histogram("ReturnService.processReturn");
+    private static final LatencyHistogram VIEW_STATUS_LATENCY = Metrics.histogram("ReturnService.viewReturnStatus");
+    private static final LatencyHistogram REPORT_LATENCY = Metrics.histogram("ReturnService.generateReport");
+
+    private final StorageEngine storage = Storage.getEngine();
+    private final ExistenceCache existenceCache = ExistenceCache.getInstance();
+    private final ReturnHeavyHitters heavyHitters = ReturnHeavyHitters.getInstance();
+    private final ReturnStatusCache statusCache = ReturnStatusCache.getInstance();
 
     public void processNewReturn(String customerId, String productId, String orderId, String reason, String condition) {
-        try {
-            conn.setAutoCommit(false);
+        long start = System.nanoTime();
+        if (ReturnIntakeJournal.isEnabled()) {
+            try {
+                journalReturn(new ReturnRequest(orderId, customerId, productId, reason, condition));
+            } finally {
+                PROCESS_NEW_RETURN_LATENCY.recordSince(start);
+            }
+            return;
+        }
+        try (Transaction tx = storage.begin()) {
+            processNewReturn(tx, customerId, productId, orderId, reason, condition);
+        } catch (SQLException e) {
+            Metrics.recordFailure(e);
+            System.out.println("Error processing return: " + e.getMessage());
+        } finally {
+            PROCESS_NEW_RETURN_LATENCY.recordSince(start);
+        }
+    }
 
+    private void processNewReturn(Transaction tx, String customerId, String productId, String orderId, String reason, String condition) {
+        int customer = parseId(customerId);
+        int product = parseId(productId);
+        if (customer <= 0 || product <= 0) {
+            System.out.println("Error processing return: " + (customer <= 0 ? ReturnValidator.INVALID_CUSTOMER_ID : ReturnValidator.INVALID_PRODUCT_ID));
+            return;
+        }
+        try {
             // Check if customer exists, otherwise create a new customer
-            if (!customerExists(customerId)) {
+            if (!storage.customers().exists(tx, customer)) {
                 System.out.print("Customer not found. Enter customer name: ");
                 String name = new Scanner(System.in).nextLine();
                 System.out.print("Enter customer email: ");
                 String email = new Scanner(System.in).nextLine();
                 System.out.print("Enter customer phone: ");
                 String phone = new Scanner(System.in).nextLine();
-                createCustomer(customerId, name, email, phone);
+                storage.customers().create(tx, customer, name, email, phone);
             }
 
             // Check if product exists
-            if (!productExists(productId)) {
+            if (!storage.products().exists(tx, product)) {
                 System.out.println("Product not found. Please verify the Product ID.");
-                conn.rollback();
+                tx.rollback();
+                return;
+            }
+
+            // A retried order line points back at the return already recorded for it
+            int original = storage.returns().findByOrderLine(tx, orderId, product);
+            if (original != ReturnRepository.NOT_FOUND) {
+                tx.rollback();
+                System.out.println("This order line was already returned as Return ID " + original + ".");
                 return;
             }
 
             // Record the return for the specific product and customer
-            createReturnRecord(orderId, customerId, productId, reason, condition);
+            createReturnRecord(tx, orderId, customer, product, reason, condition);
 
             // Commit transaction if everything is successful
-            conn.commit();
+            tx.commit();
+            recordAccepted(customerId, productId, reason);
             System.out.println("Return processed successfully!");
 
         } catch (SQLException e) {
+            Metrics.recordFailure(e);
             try {
-                conn.rollback();
+                tx.rollback();
                 System.out.println("Error processing return. Transaction rolled back.");
             } catch (SQLException rollbackEx) {
                 System.out.println("Error during transaction rollback: " + rollbackEx.getMessage());
@@ -52,79 +121,505 @@ public class ReturnService {
         }
     }
 
-    private boolean customerExists(String customerId) throws SQLException {
-        String sql = "SELECT 1 FROM customers WHERE customer_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, customerId);
-            return stmt.executeQuery().next();
+    // Journal mode acknowledges once the entry is on local disk; customer and product checks happen when it is
+    // applied, and entries that fail them go to the journal's rejected file instead of prompting
+    private void journalReturn(ReturnRequest request) {
+        ReturnOutcome outcome = enqueueReturn(request);
+        System.out.println(outcome.isSuccess() ? outcome.getMessage() : "Error processing return: " + outcome.getMessage());
+    }
+
+    private ReturnOutcome enqueueReturn(ReturnRequest request) {
+        String error = validateRequest(request);
+        if (error != null) {
+            return ReturnOutcome.rejected(0, request, error);
+        }
+        try {
+            long sequence = ReturnIntakeJournal.getInstance().append(request, ReturnStatus.PENDING, 0);
+            recordAccepted(request.getCustomerId(), request.getProductId(), request.getReason());
+            return ReturnOutcome.queued(0, request, sequence);
+        } catch (IOException e) {
+            Metrics.recordFailure(e);
+            return ReturnOutcome.rejected(0, request, "Could not write to intake journal: " + e.getMessage());
+        }
+    }
+
+    // Non-interactive single return for callers that cannot prompt, such as the concurrent engine; safe to call from many threads
+    public ReturnOutcome processReturn(ReturnRequest request) {
+        long start = System.nanoTime();
+        try {
+            return processReturnUntimed(request);
+        } finally {
+            PROCESS_RETURN_LATENCY.recordSince(start);
+        }
+    }
+
+    private ReturnOutcome processReturnUntimed(ReturnRequest request) {
+        if (ReturnIntakeJournal.isEnabled()) {
+            return enqueueReturn(request);
+        }
+        String error = validateRequest(request);
+        if (error != null) {
+            return ReturnOutcome.rejected(0, request, error);
+        }
+        String customerId = request.getCustomerId().trim();
+        String productId = request.getProductId().trim();
+        int customer = parseId(customerId);
+        int product = parseId(productId);
+
+        try (Transaction tx = storage.begin()) {
+            try {
+                if (!storage.customers().exists(tx, customer)) {
+                    tx.rollback();
+                    return ReturnOutcome.rejected(0, request, "Customer not found");
+                }
+                if (!storage.products().exists(tx, product)) {
+                    tx.rollback();
+                    return ReturnOutcome.rejected(0, request, "Product not found");
+                }
+                int original = storage.returns().findByOrderLine(tx, request.getOrderId(), product);
+                if (original != ReturnRepository.NOT_FOUND) {
+                    tx.rollback();
+                    return ReturnOutcome.duplicate(0, request, original);
+                }
+                int returnId = createReturnRecord(tx, request.getOrderId(), customer, product, request.getReason(), request.getCondition());
+                tx.commit();
+                recordAccepted(customerId, productId, request.getReason());
+                return ReturnOutcome.accepted(0, request, returnId);
+            } catch (SQLException e) {
+                tx.rollback();
+                if (DuplicateReturnGuard.isDuplicateKey(e)) {
+                    // A concurrent request claimed the same order line first
+                    int original = storage.returns().findByOrderLine(tx, request.getOrderId(), product);
+                    tx.rollback();
+                    if (original != ReturnRepository.NOT_FOUND) {
+                        return ReturnOutcome.duplicate(0, request, original);
+                    }
+                }
+                Metrics.recordFailure(e);
+                return ReturnOutcome.rejected(0, request, "Transaction rolled back: " + e.getMessage());
+            }
+        } catch (SQLException e) {
+            Metrics.recordFailure(e);
+            return ReturnOutcome.rejected(0, request, "Error processing return: " + e.getMessage());
+        }
+    }
+
+    // Feeds the in-memory counters once a return is committed or journaled
+    private void recordAccepted(String customerId, String productId, String reason) {
+        heavyHitters.record(productId, reason);
+        if (ReturnRateMonitor.isEnabled()) {
+            ReturnRateMonitor.getInstance().record(parseId(customerId));
+        }
+    }
+
+    private int createReturnRecord(Transaction tx, String orderId, int customerId, int productId, String reason, String condition) throws SQLException {
+        int returnId = storage.returns().insert(tx, orderId, customerId, productId, reason, condition, ReturnStatus.PENDING);
+        statusCache.invalidate(returnId);
+        return returnId;
+    }
+
+    public List<ReturnOutcome> processReturnsBatch(List<ReturnRequest> requests) {
+        return processReturnsBatch(requests, DEFAULT_BATCH_CHUNK_SIZE);
+    }
+
+    // Unlike processNewReturn, unknown customers are rejected rather than prompted for, since batches run unattended
+    public List<ReturnOutcome> processReturnsBatch(List<ReturnRequest> requests, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        if (!(storage instanceof JdbcStorageEngine)) {
+            return processReturnsIndividually(requests);
+        }
+        ReturnOutcome[] outcomes = new ReturnOutcome[requests.size()];
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            for (int start = 0; start < requests.size(); start += chunkSize) {
+                int end = Math.min(start + chunkSize, requests.size());
+                processChunk(conn, requests, start, end, outcomes);
+            }
+        } catch (SQLException e) {
+            Metrics.recordFailure(e);
+            System.out.println("Error processing return batch: " + e.getMessage());
+            for (int i = 0; i < outcomes.length; i++) {
+                if (outcomes[i] == null) {
+                    outcomes[i] = ReturnOutcome.rejected(i, requests.get(i), "Batch aborted: " + e.getMessage());
+                }
+            }
+        }
+        for (ReturnOutcome outcome : outcomes) {
+            if (outcome.isSuccess() && !outcome.isDuplicate()) {
+                ReturnRequest request = outcome.getRequest();
+                recordAccepted(request.getCustomerId(), request.getProductId(), request.getReason());
+            }
+        }
+        return Arrays.asList(outcomes);
+    }
+
+    // The chunked SQL path above saves database round trips; other engines have none to save, so each request
+    // simply runs as its own transaction
+    private List<ReturnOutcome> processReturnsIndividually(List<ReturnRequest> requests) {
+        List<ReturnOutcome> outcomes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            outcomes.add(processReturnUntimed(requests.get(i)).withIndex(i));
+        }
+        return outcomes;
+    }
+
+    private void processChunk(Connection conn, List<ReturnRequest> requests, int start, int end,
+                              ReturnOutcome[] outcomes) throws SQLException {
+        DuplicateReturnGuard duplicateGuard = DuplicateReturnGuard.getInstance();
+        Set<Integer> customerIds = new HashSet<>();
+        Set<Integer> productIds = new HashSet<>();
+        for (int i = start; i < end; i++) {
+            ReturnRequest request = requests.get(i);
+            String error = validateRequest(request);
+            if (error != null) {
+                outcomes[i] = ReturnOutcome.rejected(i, request, error);
+                continue;
+            }
+            customerIds.add(parseId(request.getCustomerId()));
+            productIds.add(parseId(request.getProductId()));
+        }
+
+        Set<Integer> knownCustomers = findExistingIds(conn, ExistenceCache.Entity.CUSTOMER, customerIds);
+        Set<Integer> knownProducts = findExistingIds(conn, ExistenceCache.Entity.PRODUCT, productIds);
+
+        List<Integer> pending = new ArrayList<>();
+        // Later rows repeating an order line already in this chunk, mapped to the row that goes in first
+        Map<String, Integer> firstByKey = new HashMap<>();
+        Map<Integer, Integer> repeats = new LinkedHashMap<>();
+        for (int i = start; i < end; i++) {
+            if (outcomes[i] != null) {
+                continue;
+            }
+            ReturnRequest request = requests.get(i);
+            int productId = parseId(request.getProductId());
+            if (!knownCustomers.contains(parseId(request.getCustomerId()))) {
+                outcomes[i] = ReturnOutcome.rejected(i, request, "Customer not found");
+            } else if (!knownProducts.contains(productId)) {
+                outcomes[i] = ReturnOutcome.rejected(i, request, "Product not found");
+            } else if (!DuplicateReturnGuard.isKeyed(request.getOrderId())) {
+                pending.add(i);
+            } else {
+                int original = duplicateGuard.findOriginal(conn, request.getOrderId(), productId);
+                Integer first = original == DuplicateReturnGuard.NOT_FOUND
+                        ? firstByKey.putIfAbsent(request.getOrderId() + '\u0000' + productId, i) : null;
+                if (original != DuplicateReturnGuard.NOT_FOUND) {
+                    outcomes[i] = ReturnOutcome.duplicate(i, request, original);
+                } else if (first != null) {
+                    repeats.put(i, first);
+                } else {
+                    pending.add(i);
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            try {
+                int[] returnIds = insertReturnRecords(conn, requests, pending);
+                conn.commit();
+                for (int p = 0; p < pending.size(); p++) {
+                    int i = pending.get(p);
+                    outcomes[i] = ReturnOutcome.accepted(i, requests.get(i), returnIds[p]);
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                insertReturnRecordsIndividually(conn, requests, pending, outcomes);
+            }
+        }
+        for (Map.Entry<Integer, Integer> repeat : repeats.entrySet()) {
+            int i = repeat.getKey();
+            ReturnOutcome first = outcomes[repeat.getValue()];
+            outcomes[i] = first.isSuccess() && first.getReturnId() > 0
+                    ? ReturnOutcome.duplicate(i, requests.get(i), first.getReturnId())
+                    : ReturnOutcome.rejected(i, requests.get(i), first.getMessage());
         }
     }
 
-    private void createCustomer(String customerId, String name, String email, String phone) throws SQLException {
-        String sql = "INSERT INTO customers (customer_id, name, email, phone) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, customerId);
-            stmt.setString(2, name);
-            stmt.setString(3, email);
-            stmt.setString(4, phone);
-            stmt.executeUpdate();
+    private String validateRequest(ReturnRequest request) {
+        List<String> violations = ReturnValidator.validate(request);
+        return violations.isEmpty() ? null : String.join("; ", violations);
+    }
+
+    private int parseId(String id) {
+        return Validators.parsePositiveId(id);
+    }
+
+    private Set<Integer> findExistingIds(Connection conn, ExistenceCache.Entity entity, Set<Integer> ids) throws SQLException {
+        Set<Integer> found = new HashSet<>();
+        List<Integer> uncached = new ArrayList<>();
+        for (int id : ids) {
+            Boolean cached = existenceCache.lookup(entity, id);
+            if (cached == null) {
+                uncached.add(id);
+            } else if (cached) {
+                found.add(id);
+            }
+        }
+        if (uncached.isEmpty()) {
+            return found;
+        }
+        String table = entity.getTable();
+        String column = entity.getIdColumn();
+        StringBuilder sql = new StringBuilder("SELECT ").append(column).append(" FROM ").append(table)
+                .append(" WHERE ").append(column).append(" IN (");
+        for (int i = 0; i < uncached.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+
+        Set<Integer> fetched = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            for (int id : uncached) {
+                stmt.setInt(param++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    fetched.add(rs.getInt(1));
+                }
+            }
+        }
+        for (int id : uncached) {
+            existenceCache.record(entity, id, fetched.contains(id));
         }
+        found.addAll(fetched);
+        return found;
     }
 
-    private boolean productExists(String productId) throws SQLException {
-        String sql = "SELECT 1 FROM products WHERE product_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, productId);
-            return stmt.executeQuery().next();
+    // Returns the generated return IDs in the order of pending
+    private int[] insertReturnRecords(Connection conn, List<ReturnRequest> requests, List<Integer> pending) throws SQLException {
+        DuplicateReturnGuard duplicateGuard = DuplicateReturnGuard.getInstance();
+        int[] returnIds = new int[pending.size()];
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_RETURN_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i : pending) {
+                bindReturnRecord(stmt, requests.get(i));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (int p = 0; p < returnIds.length && keys.next(); p++) {
+                    returnIds[p] = keys.getInt(1);
+                }
+            }
+        }
+        String[] orderIds = new String[pending.size()];
+        int[] productIds = new int[pending.size()];
+        for (int p = 0; p < pending.size(); p++) {
+            ReturnRequest request = requests.get(pending.get(p));
+            orderIds[p] = request.getOrderId();
+            productIds[p] = parseId(request.getProductId());
         }
+        duplicateGuard.claimAll(conn, orderIds, productIds, returnIds);
+        ReturnRollupService.recordCreated(conn, returnIds);
+        return returnIds;
     }
 
-    private void createReturnRecord(String orderId, String customerId, String productId, String reason, String condition) throws SQLException {
-        String sql = "INSERT INTO returns (order_id, customer_id, product_id, reason, product_condition, status) VALUES (?, ?, ?, ?, ?, 'PENDING')";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, orderId);       // Make sure you pass the order_id
-            stmt.setString(2, customerId);    // Pass the customer_id
-            stmt.setString(3, productId);     // Pass the product_id
-            stmt.setString(4, reason);        // Pass the reason
-            stmt.setString(5, condition);     // Pass the condition
-            stmt.executeUpdate();
+    // Fallback when the chunk's batch insert fails: each row gets its own savepoint so one bad row only loses itself
+    private void insertReturnRecordsIndividually(Connection conn, List<ReturnRequest> requests, List<Integer> pending,
+                                                 ReturnOutcome[] outcomes) throws SQLException {
+        DuplicateReturnGuard duplicateGuard = DuplicateReturnGuard.getInstance();
+        int[] insertedIds = new int[pending.size()];
+        int inserted = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_RETURN_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i : pending) {
+                ReturnRequest request = requests.get(i);
+                int productId = parseId(request.getProductId());
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    bindReturnRecord(stmt, request);
+                    stmt.executeUpdate();
+                    int returnId = 0;
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            returnId = keys.getInt(1);
+                        }
+                    }
+                    duplicateGuard.claim(conn, request.getOrderId(), productId, returnId);
+                    conn.releaseSavepoint(savepoint);
+                    outcomes[i] = ReturnOutcome.accepted(i, request, returnId);
+                    insertedIds[inserted++] = returnId;
+                } catch (SQLException e) {
+                    conn.rollback(savepoint);
+                    int original = DuplicateReturnGuard.isDuplicateKey(e)
+                            ? duplicateGuard.findOriginal(conn, request.getOrderId(), productId) : DuplicateReturnGuard.NOT_FOUND;
+                    outcomes[i] = original != DuplicateReturnGuard.NOT_FOUND
+                            ? ReturnOutcome.duplicate(i, request, original)
+                            : ReturnOutcome.rejected(i, request, e.getMessage());
+                }
+            }
         }
+        ReturnRollupService.recordCreated(conn, Arrays.copyOf(insertedIds, inserted));
+        conn.commit();
+    }
+
+    private void bindReturnRecord(PreparedStatement stmt, ReturnRequest request) throws SQLException {
+        stmt.setString(1, request.getOrderId());
+        stmt.setString(2, request.getCustomerId().trim());
+        stmt.setString(3, request.getProductId().trim());
+        stmt.setString(4, request.getReason());
+        stmt.setString(5, request.getCondition());
     }
 
     public void viewReturnStatus(String returnId) {
-        String sql = "SELECT return_id, customer_id, product_id, created_date, reason, `product_condition`, status FROM returns WHERE return_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, returnId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                System.out.println("Return ID: " + rs.getInt("return_id"));
-                System.out.println("Customer ID: " + rs.getString("customer_id"));
-                System.out.println("Product ID: " + rs.getString("product_id"));
-                System.out.println("Created Date: " + rs.getTimestamp("created_date"));
-                System.out.println("Reason: " + rs.getString("reason"));
-                System.out.println("Condition: " + rs.getString("product_condition"));
-                System.out.println("Status: " + rs.getString("status"));
+        long start = System.nanoTime();
+        try {
+            ReturnRecord record = findReturn(parseId(returnId));
+            if (record != null) {
+                System.out.println("Return ID: " + record.getReturnId());
+                System.out.println("Customer ID: " + record.getCustomerId());
+                System.out.println("Product ID: " + record.getProductId());
+                System.out.println("Created Date: " + record.getCreatedDate());
+                System.out.println("Reason: " + record.getReason());
+                System.out.println("Condition: " + record.getCondition());
+                System.out.println("Status: " + record.getStatus());
             } else {
                 System.out.println("Return not found!");
             }
         } catch (SQLException e) {
+            Metrics.recordFailure(e);
             System.out.println("Error viewing return: " + e.getMessage());
+        } finally {
+            VIEW_STATUS_LATENCY.recordSince(start);
+        }
+    }
+
+    // Returns null when no return has this ID; read through the status cache
+    public ReturnRecord findReturn(int returnId) throws SQLException {
+        if (returnId <= 0) {
+            return null;
+        }
+        ReturnRecord cached = statusCache.get(returnId);
+        if (cached != null) {
+            return cached;
+        }
+        try (Transaction tx = storage.beginRead()) {
+            ReturnRecord record = storage.returns().findById(tx, returnId);
+            if (record != null) {
+                statusCache.put(record);
+            }
+            return record;
+        }
+    }
+
+    // Cached returns are served from memory and all misses are loaded in one repository call; IDs with no
+    // return are left out of the result
+    public Map<Integer, ReturnRecord> findReturns(Collection<Integer> returnIds) throws SQLException {
+        Map<Integer, ReturnRecord> found = new LinkedHashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (int returnId : new LinkedHashSet<>(returnIds)) {
+            if (returnId <= 0) {
+                continue;
+            }
+            ReturnRecord cached = statusCache.get(returnId);
+            if (cached != null) {
+                found.put(returnId, cached);
+            } else {
+                misses.add(returnId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+        try (Transaction tx = storage.beginRead()) {
+            for (ReturnRecord record : storage.returns().findByIds(tx, misses)) {
+                statusCache.put(record);
+                found.put(record.getReturnId(), record);
+            }
+        }
+        return found;
+    }
+
+    public Map<Integer, String> getStatuses(Collection<Integer> returnIds) throws SQLException {
+        Map<Integer, String> statuses = new LinkedHashMap<>();
+        for (ReturnRecord record : findReturns(returnIds).values()) {
+            statuses.put(record.getReturnId(), record.getStatus());
+        }
+        return statuses;
+    }
+
+    // Newest first, as CustomerReturn objects carrying the stored id, date and status; pages continue from
+    // ReturnHistoryPage.getNextCursor
+    public ReturnHistoryPage findCustomerHistory(int customerId, ReturnHistoryQuery query) throws SQLException {
+        try (Transaction tx = storage.beginRead()) {
+            return storage.returns().findByCustomer(tx, customerId, query);
+        }
+    }
+
+    public ReturnHistoryPage findProductHistory(int productId, ReturnHistoryQuery query) throws SQLException {
+        try (Transaction tx = storage.beginRead()) {
+            return storage.returns().findByProduct(tx, productId, query);
+        }
+    }
+
+    public static String reportTimeFrame(int reportType) {
+        return reportType == 1 ? "DAY" : reportType == 2 ? "WEEK" : "MONTH";
+    }
+
+    // Served from hourly counters rather than by scanning returns, so the period boundary is rounded down to the hour
+    public Map<String, Long> reportCounts(int reportType) throws SQLException {
+        try (Transaction tx = storage.beginRead()) {
+            return storage.returns().countByStatusForLast(tx, reportTimeFrame(reportType));
         }
     }
 
     public void generateReport(int reportType) {
-        String timeFrame = reportType == 1 ? "DAY" : reportType == 2 ? "WEEK" : "MONTH";
-        String sql = "SELECT status, COUNT(*) as count FROM returns WHERE created_date >= DATE_SUB(NOW(), INTERVAL 1 " + timeFrame + ") GROUP BY status";
+        long start = System.nanoTime();
+        String timeFrame = reportTimeFrame(reportType);
 
-        try (Statement stmt = conn.createStatement()) {
-            ResultSet rs = stmt.executeQuery(sql);
+        try {
+            Map<String, Long> counts = reportCounts(reportType);
             System.out.println("\nReturn Report for the last " + timeFrame);
             System.out.println("------------------------");
-            while (rs.next()) {
-                System.out.printf("%s: %d returns\n", rs.getString("status"), rs.getInt("count"));
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                System.out.printf("%s: %d returns\n", entry.getKey(), entry.getValue());
             }
         } catch (SQLException e) {
+            Metrics.recordFailure(e);
             System.out.println("Error generating report: " + e.getMessage());
+        } finally {
+            REPORT_LATENCY.recordSince(start);
+        }
+    }
+
+    // Served from the in-memory heavy hitters, so it costs nothing on the database and covers returns since startup
+    public void generateTopReturnsReport(ReturnHeavyHitters.Window window, int limit) {
+        System.out.println("\nMost Returned Products (" + window + ", since startup)");
+        System.out.println("------------------------");
+        for (HeavyHitter hitter : heavyHitters.topProducts(window, limit)) {
+            System.out.println("Product " + hitter);
+        }
+        System.out.println("\nMost Common Return Reasons (" + window + ", since startup)");
+        System.out.println("------------------------");
+        for (HeavyHitter hitter : heavyHitters.topReasons(window, limit)) {
+            System.out.println(hitter);
+        }
+    }
+
+    public void rebuildRollups() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int buckets = ReturnRollupService.rebuild(conn);
+            System.out.println("Rebuilt return rollups: " + buckets + " buckets");
+        } catch (SQLException e) {
+            System.out.println("Error rebuilding rollups: " + e.getMessage());
+        }
+    }
+
+    public boolean checkRollups() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            List<String> mismatches = ReturnRollupService.checkConsistency(conn);
+            if (mismatches.isEmpty()) {
+                System.out.println("Return rollups are consistent with the returns table.");
+                return true;
+            }
+            System.out.println("Return rollups differ from the returns table:");
+            for (String mismatch : mismatches) {
+                System.out.println("  " + mismatch);
+            }
+        } catch (SQLException e) {
+            System.out.println("Error checking rollups: " + e.getMessage());
         }
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.inventory.service;
+
+import com.inventory.model.ReturnRecord;
+import com.inventory.util.LruCache;
+
+// Recently read returns by ID, so repeated status lookups from the support desk and portal skip the
+// database. Writers invalidate after they commit; the TTL bounds how long a read that raced a write can
+// keep serving the old status. Only rows that exist are cached.
+public class ReturnStatusCache {
+    private static final int MAX_SIZE = Integer.getInteger("cache.returnStatus.maxSize", 50000);
+    private static final long TTL_MILLIS = Long.getLong("cache.returnStatus.ttlMillis", 60000L);
+
+    private static final ReturnStatusCache INSTANCE = new ReturnStatusCache(MAX_SIZE, TTL_MILLIS);
+
+    private final LruCache<Integer, ReturnRecord> records;
+    private final long ttlMillis;
+
+    public ReturnStatusCache(int maxSize, long ttlMillis) {
+        this.records = new LruCache<>(maxSize);
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static ReturnStatusCache getInstance() {
+        return INSTANCE;
+    }
+
+    // Returns null when the return is not cached
+    public ReturnRecord get(int returnId) {
+        return records.get(returnId);
+    }
+
+    public void put(ReturnRecord record) {
+        records.put(record.getReturnId(), record, ttlMillis);
+    }
+
+    public void invalidate(int returnId) {
+        records.invalidate(returnId);
+    }
+
+    public void invalidateAll() {
+        records.invalidateAll();
+    }
+
+    public LruCache<Integer, ReturnRecord> getRecords() {
+        return records;
+    }
+
+    @Override
+    public String toString() {
+        return "ReturnStatusCache{" + records + '}';
+    }
+}
@@ -0,0 +1,149 @@
+package com.inventory.service;
+
+import com.inventory.repository.Storage;
+import com.inventory.util.ConcurrentIntIntHashMap;
+import com.inventory.util.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// In-process view of products.current_stock for availability checks. Warmed from the products table on
+// first use and moved in step with the return path, so reads never touch the database. Stock can never go
+// below zero, matching Product.
+public class StockLedger {
+    private static final boolean ENABLED = Boolean.getBoolean("stock.ledger");
+    private static final int EXPECTED_PRODUCTS = Integer.getInteger("stock.ledger.expectedProducts", 100000);
+    private static final int WARM_FETCH_SIZE = 10000;
+
+    public static final int UNKNOWN = -1;
+
+    private static volatile StockLedger instance;
+
+    private final ConcurrentIntIntHashMap stock;
+
+    public StockLedger(int expectedProducts) {
+        this.stock = new ConcurrentIntIntHashMap(expectedProducts);
+    }
+
+    // The in-memory storage engine keeps stock in process already
+    public static boolean isEnabled() {
+        return ENABLED && !Storage.isInMemory();
+    }
+
+    public static StockLedger getInstance() {
+        StockLedger current = instance;
+        if (current == null) {
+            synchronized (StockLedger.class) {
+                current = instance;
+                if (current == null) {
+                    current = new StockLedger(EXPECTED_PRODUCTS);
+                    try (Connection conn = DatabaseConnection.getConnection()) {
+                        current.warm(conn);
+                    } catch (SQLException e) {
+                        System.out.println("Error warming stock ledger: " + e.getMessage());
+                    }
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Loads current_stock for every product; returns how many were loaded
+    public int warm(Connection conn) throws SQLException {
+        int loaded = 0;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(WARM_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery("SELECT product_id, current_stock FROM products")) {
+                while (rs.next()) {
+                    stock.put(rs.getInt(1), Math.max(0, rs.getInt(2)));
+                    loaded++;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    // Returns UNKNOWN for products the ledger has not seen
+    public int getStock(int productId) {
+        return stock.get(productId, UNKNOWN);
+    }
+
+    // Read-through for products added after warm-up
+    public int getStock(Connection conn, int productId) throws SQLException {
+        int current = stock.get(productId, UNKNOWN);
+        if (current != UNKNOWN) {
+            return current;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT current_stock FROM products WHERE product_id = ?")) {
+            stmt.setInt(1, productId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return UNKNOWN;
+                }
+                // A concurrent load may have won; its value is kept
+                return stock.putIfAbsent(productId, Math.max(0, rs.getInt(1)));
+            }
+        }
+    }
+
+    public boolean isAvailable(int productId, int quantity) {
+        int current = stock.get(productId, UNKNOWN);
+        return current != UNKNOWN && current >= quantity;
+    }
+
+    // Returns the new stock, or UNKNOWN when the product is not in the ledger
+    public int increment(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Increment quantity must be positive");
+        }
+        int updated = stock.addAndGet(productId, quantity, 0);
+        if (updated == ConcurrentIntIntHashMap.MISSING) {
+            return UNKNOWN;
+        }
+        if (updated == ConcurrentIntIntHashMap.REJECTED) {
+            throw new IllegalStateException("Stock would overflow");
+        }
+        return updated;
+    }
+
+    public int decrement(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Decrement quantity must be positive");
+        }
+        int updated = stock.addAndGet(productId, -quantity, 0);
+        if (updated == ConcurrentIntIntHashMap.MISSING || updated == ConcurrentIntIntHashMap.REJECTED) {
+            throw new IllegalStateException("Insufficient stock available");
+        }
+        return updated;
+    }
+
+    // Atomically takes quantity if at least that much is in stock
+    public boolean tryDecrement(int productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Decrement quantity must be positive");
+        }
+        int updated = stock.addAndGet(productId, -quantity, 0);
+        return updated != ConcurrentIntIntHashMap.MISSING && updated != ConcurrentIntIntHashMap.REJECTED;
+    }
+
+    // Mirrors a change another path has already written; products the ledger has not loaded are left to read-through
+    public void apply(int productId, int delta) {
+        if (delta != 0) {
+            stock.addAndGet(productId, delta, 0);
+        }
+    }
+
+    public void set(int productId, int currentStock) {
+        if (currentStock < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        stock.put(productId, currentStock);
+    }
+
+    public int size() {
+        return stock.size();
+    }
+}
@@ -0,0 +1,245 @@
+package com.inventory.service;
+
+import com.inventory.repository.Storage;
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.IntIntHashMap;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coalesces per-product stock increments so a hot SKU takes one row lock per flush instead of one per return
+public class StockWriteBehind {
+    private static final boolean ENABLED = Boolean.getBoolean("stock.writeBehind");
+    private static final int FLUSH_THRESHOLD = Integer.getInteger("stock.writeBehind.flushThreshold", 1000);
+    private static final long FLUSH_INTERVAL_MILLIS = Long.getLong("stock.writeBehind.flushIntervalMillis", 1000L);
+    private static final int STRIPES = 16;
+
+    private static volatile StockWriteBehind instance;
+
+    private final IntIntHashMap[] stripes = new IntIntHashMap[STRIPES];
+    private final AtomicInteger pendingUnits = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+    private final int flushThreshold;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedUnits = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong skippedUpdateCount = new AtomicLong();
+
+    public StockWriteBehind(int flushThreshold, long flushIntervalMillis) {
+        this.flushThreshold = flushThreshold;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new IntIntHashMap();
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Flushes go to the database, so there is nothing to coalesce for the in-memory storage engine
+    public static boolean isEnabled() {
+        return ENABLED && !Storage.isInMemory();
+    }
+
+    public static StockWriteBehind getInstance() {
+        StockWriteBehind current = instance;
+        if (current == null) {
+            synchronized (StockWriteBehind.class) {
+                current = instance;
+                if (current == null) {
+                    current = new StockWriteBehind(FLUSH_THRESHOLD, FLUSH_INTERVAL_MILLIS);
+                    Runtime.getRuntime().addShutdownHook(new Thread(StockWriteBehind::shutdownInstance, "stock-write-behind-shutdown"));
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized void shutdownInstance() {
+        if (instance != null) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    public void record(int productId, int delta) {
+        IntIntHashMap stripe = stripes[productId & (STRIPES - 1)];
+        synchronized (stripe) {
+            stripe.addTo(productId, delta);
+        }
+        if (pendingUnits.addAndGet(Math.abs(delta)) >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.out.println("Error flushing stock updates: " + e.getMessage());
+        }
+    }
+
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            int[][] drained = drain();
+            int[] productIds = drained[0];
+            int[] deltas = drained[1];
+            if (productIds.length == 0) {
+                return;
+            }
+
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    writeDeltas(conn, productIds, deltas);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                // Put the deltas back so they are retried on the next flush instead of being lost
+                requeue(productIds, deltas);
+                failedFlushCount.incrementAndGet();
+                throw e;
+            }
+
+            long units = 0;
+            for (int delta : deltas) {
+                units += Math.abs(delta);
+            }
+            pendingUnits.addAndGet((int) -units);
+            flushedUnits.addAndGet(units);
+            flushCount.incrementAndGet();
+        }
+    }
+
+    private int[][] drain() {
+        int[][] parts = new int[STRIPES * 2][];
+        int total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            IntIntHashMap stripe = stripes[i];
+            synchronized (stripe) {
+                int[] ids = new int[stripe.size()];
+                int[] values = new int[stripe.size()];
+                int[] next = new int[1];
+                stripe.forEach((productId, delta) -> {
+                    ids[next[0]] = productId;
+                    values[next[0]] = delta;
+                    next[0]++;
+                });
+                stripe.clear();
+                parts[i * 2] = ids;
+                parts[i * 2 + 1] = values;
+                total += ids.length;
+            }
+        }
+
+        int[] productIds = new int[total];
+        int[] deltas = new int[total];
+        int offset = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            int[] ids = parts[i * 2];
+            System.arraycopy(ids, 0, productIds, offset, ids.length);
+            System.arraycopy(parts[i * 2 + 1], 0, deltas, offset, ids.length);
+            offset += ids.length;
+        }
+        return new int[][] { productIds, deltas };
+    }
+
+    private void requeue(int[] productIds, int[] deltas) {
+        for (int i = 0; i < productIds.length; i++) {
+            IntIntHashMap stripe = stripes[productIds[i] & (STRIPES - 1)];
+            synchronized (stripe) {
+                stripe.addTo(productIds[i], deltas[i]);
+            }
+        }
+    }
+
+    // Products that no longer exist get no inventory_log row, since their stock never changed
+    private void writeDeltas(Connection conn, int[] productIds, int[] deltas) throws SQLException {
+        String updateSql = "UPDATE products SET current_stock = current_stock + ? WHERE product_id = ?";
+        String logSql = "INSERT INTO inventory_log (product_id, quantity_change, action_type) VALUES (?, ?, 'RETURN')";
+        try (PreparedStatement update = conn.prepareStatement(updateSql);
+             PreparedStatement log = conn.prepareStatement(logSql)) {
+            int[] batched = new int[productIds.length];
+            int count = 0;
+            for (int i = 0; i < productIds.length; i++) {
+                if (deltas[i] == 0) {
+                    continue;
+                }
+                update.setInt(1, deltas[i]);
+                update.setInt(2, productIds[i]);
+                update.addBatch();
+                batched[count++] = i;
+            }
+            if (count == 0) {
+                return;
+            }
+            int[] updated = update.executeBatch();
+            boolean logged = false;
+            for (int j = 0; j < count; j++) {
+                int i = batched[j];
+                if (updated[j] == 0) {
+                    skippedUpdateCount.incrementAndGet();
+                    continue;
+                }
+                log.setInt(1, productIds[i]);
+                log.setInt(2, deltas[i]);
+                log.addBatch();
+                logged = true;
+            }
+            if (logged) {
+                log.executeBatch();
+            }
+        }
+    }
+
+    // Stops the timer and writes out everything still pending before the pool goes away
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            System.out.println("Error flushing stock updates on shutdown: " + e.getMessage());
+        }
+    }
+
+    public int getPendingUnits() {
+        return pendingUnits.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedUnits() {
+        return flushedUnits.get();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    // Coalesced increments dropped because their product no longer exists
+    public long getSkippedUpdateCount() {
+        return skippedUpdateCount.get();
+    }
+}
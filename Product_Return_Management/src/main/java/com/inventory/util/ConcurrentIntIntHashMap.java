@@ -0,0 +1,221 @@
+package com.inventory.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Concurrent int -> int map without boxing. Reads never lock and value updates are a CAS on the slot;
+// only inserting a new key takes a lock. Keys and values sit side by side in one array for locality.
+// Keys must be positive and there is no removal, which suits per-product counters.
+public class ConcurrentIntIntHashMap {
+    public static final int REJECTED = Integer.MIN_VALUE;
+    public static final int MISSING = Integer.MIN_VALUE + 1;
+
+    // Marks a slot whose value has been copied to a larger table; readers and writers retry on the new one
+    private static final int MOVED = Integer.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    public interface Visitor {
+        void visit(int key, int value);
+    }
+
+    private volatile AtomicIntegerArray table;
+    private volatile int size;
+    private final Object insertLock = new Object();
+
+    public ConcurrentIntIntHashMap() {
+        this(16);
+    }
+
+    public ConcurrentIntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        table = new AtomicIntegerArray(capacity * 2);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void checkKey(int key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive");
+        }
+    }
+
+    private static void checkValue(int value) {
+        if (value == MOVED || value == MISSING) {
+            throw new IllegalArgumentException("Value out of range");
+        }
+    }
+
+    // Index of the key's slot in t, or -1 when the key is absent
+    private static int find(AtomicIntegerArray t, int key) {
+        int mask = (t.length() >> 1) - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            int k = t.get(i << 1);
+            if (k == key) {
+                return i;
+            }
+            if (k == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public int get(int key, int defaultValue) {
+        checkKey(key);
+        AtomicIntegerArray t = table;
+        while (true) {
+            int i = find(t, key);
+            if (i < 0) {
+                return defaultValue;
+            }
+            int value = t.get((i << 1) + 1);
+            if (value != MOVED) {
+                return value;
+            }
+            t = awaitResize(t);
+        }
+    }
+
+    public boolean containsKey(int key) {
+        checkKey(key);
+        return find(table, key) >= 0;
+    }
+
+    public void put(int key, int value) {
+        checkKey(key);
+        checkValue(value);
+        AtomicIntegerArray t = table;
+        while (true) {
+            int i = find(t, key);
+            if (i < 0) {
+                if (insert(key, value)) {
+                    return;
+                }
+                t = table;
+                continue;
+            }
+            int slot = (i << 1) + 1;
+            int current = t.get(slot);
+            if (current == MOVED) {
+                t = awaitResize(t);
+            } else if (t.compareAndSet(slot, current, value)) {
+                return;
+            }
+        }
+    }
+
+    // Returns the value now mapped to the key: the given one if it was absent, otherwise the existing one
+    public int putIfAbsent(int key, int value) {
+        checkKey(key);
+        checkValue(value);
+        while (true) {
+            if (insert(key, value)) {
+                return value;
+            }
+            int existing = get(key, MISSING);
+            if (existing != MISSING) {
+                return existing;
+            }
+        }
+    }
+
+    // Adds delta to an existing key unless the result would fall below minimum or overflow. Returns the new
+    // value, MISSING when the key is absent, or REJECTED when the bounds would be violated.
+    public int addAndGet(int key, int delta, int minimum) {
+        checkKey(key);
+        AtomicIntegerArray t = table;
+        while (true) {
+            int i = find(t, key);
+            if (i < 0) {
+                return MISSING;
+            }
+            int slot = (i << 1) + 1;
+            int current = t.get(slot);
+            if (current == MOVED) {
+                t = awaitResize(t);
+                continue;
+            }
+            long next = (long) current + delta;
+            if (next < minimum || next > Integer.MAX_VALUE || next == MISSING) {
+                return REJECTED;
+            }
+            if (t.compareAndSet(slot, current, (int) next)) {
+                return (int) next;
+            }
+        }
+    }
+
+    // Returns false when another thread inserted the key first, so the caller retries as an update
+    private boolean insert(int key, int value) {
+        synchronized (insertLock) {
+            AtomicIntegerArray t = table;
+            if (find(t, key) >= 0) {
+                return false;
+            }
+            if (size + 1 > (t.length() >> 1) * LOAD_FACTOR) {
+                t = resize(t);
+            }
+            int mask = (t.length() >> 1) - 1;
+            int i = hash(key) & mask;
+            while (t.get(i << 1) != 0) {
+                i = (i + 1) & mask;
+            }
+            // Value before key, so a reader that finds the key always sees its value
+            t.set((i << 1) + 1, value);
+            t.set(i << 1, key);
+            size++;
+            return true;
+        }
+    }
+
+    private AtomicIntegerArray resize(AtomicIntegerArray old) {
+        AtomicIntegerArray grown = new AtomicIntegerArray(old.length() * 2);
+        int mask = (grown.length() >> 1) - 1;
+        for (int i = 0; i < old.length(); i += 2) {
+            int key = old.get(i);
+            if (key == 0) {
+                continue;
+            }
+            int value = old.getAndSet(i + 1, MOVED);
+            int j = hash(key) & mask;
+            while (grown.get(j << 1) != 0) {
+                j = (j + 1) & mask;
+            }
+            grown.set((j << 1) + 1, value);
+            grown.set(j << 1, key);
+        }
+        table = grown;
+        return grown;
+    }
+
+    private AtomicIntegerArray awaitResize(AtomicIntegerArray old) {
+        AtomicIntegerArray t;
+        while ((t = table) == old) {
+            Thread.onSpinWait();
+        }
+        return t;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Visits a consistent-per-entry snapshot; values changing concurrently may be seen before or after the change
+    public void forEach(Visitor visitor) {
+        AtomicIntegerArray t = table;
+        for (int i = 0; i < t.length(); i += 2) {
+            int key = t.get(i);
+            if (key != 0) {
+                int value = t.get(i + 1);
+                visitor.visit(key, value == MOVED ? get(key, 0) : value);
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.inventory.util;
+
+import com.inventory.metrics.LatencyHistogram;
+import com.inventory.metrics.Metrics;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool implements ConnectionPoolMXBean {
+    private static final boolean TIME_STATEMENTS = Boolean.parseBoolean(System.getProperty("metrics.sql", "true"));
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger physicalCount = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int maxSize,
+                          long maxWaitMillis, long idleTimeoutMillis, int validationTimeoutSeconds) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection");
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = DriverManager.getConnection(url, user, password);
+                physicalCount.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection takeValidIdle() {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            try {
+                if (candidate.connection.isValid(validationTimeoutSeconds)) {
+                    return candidate.connection;
+                }
+            } catch (SQLException e) {
+                // fall through and discard the broken connection
+            }
+            closePhysical(candidate.connection);
+        }
+        return null;
+    }
+
+    private void release(Connection physical) {
+        active.decrementAndGet();
+        try {
+            if (closed || physical.isClosed()) {
+                closePhysical(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(physical, System.currentTimeMillis()));
+        } catch (SQLException e) {
+            closePhysical(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        Iterator<IdleConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            IdleConnection candidate = it.next();
+            if (candidate.lastUsed < cutoff && idle.remove(candidate)) {
+                evictedCount.incrementAndGet();
+                closePhysical(candidate.connection);
+            }
+        }
+    }
+
+    private void closePhysical(Connection physical) {
+        physicalCount.decrementAndGet();
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // connection is being discarded anyway
+        }
+    }
+
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closePhysical(candidate.connection);
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new PooledConnectionHandler(physical);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public int getPhysicalCount() {
+        return physicalCount.get();
+    }
+
+    @Override
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    @Override
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    @Override
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get() + timeoutCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    @Override
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool{active=%d, idle=%d, max=%d, borrows=%d, timeouts=%d, evicted=%d, avgWait=%.2fms, maxWait=%.2fms}",
+                getActiveCount(), getIdleCount(), maxSize, getBorrowCount(), getTimeoutCount(),
+                getEvictedCount(), getAverageWaitMillis(), getMaxWaitMillis());
+    }
+
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long lastUsed;
+
+        IdleConnection(Connection connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(physical)) {
+                        return physical;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            switch (method.getName()) {
+                case "commit":
+                    Metrics.recordCommit();
+                    break;
+                case "rollback":
+                    if (args == null) {
+                        Metrics.recordRollback();
+                    }
+                    break;
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    if (TIME_STATEMENTS) {
+                        String sql = method.getName().equals("createStatement") ? null : (String) args[0];
+                        return timed((Statement) result, sql, method.getReturnType());
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+    }
+
+    private static Object timed(Statement statement, String sql, Class<?> type) {
+        InvocationHandler handler = new TimedStatementHandler(statement, sql);
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    // Records the latency of every execute call in a histogram per statement shape (verb and table)
+    private static class TimedStatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final LatencyHistogram preparedHistogram;
+
+        TimedStatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.preparedHistogram = sql == null ? null : Metrics.sqlHistogram(sql);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            LatencyHistogram histogram = null;
+            if (method.getName().startsWith("execute")) {
+                if (args != null && args.length > 0 && args[0] instanceof String) {
+                    histogram = Metrics.sqlHistogram((String) args[0]);
+                } else {
+                    histogram = preparedHistogram != null ? preparedHistogram : Metrics.histogram("sql.BATCH");
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (histogram != null) {
+                    histogram.recordSince(start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.inventory.util;
+
+public interface ConnectionPoolMXBean {
+    int getMaxSize();
+    int getActiveCount();
+    int getIdleCount();
+    int getPhysicalCount();
+    long getBorrowCount();
+    long getTimeoutCount();
+    long getEvictedCount();
+    double getAverageWaitMillis();
+    double getMaxWaitMillis();
+}
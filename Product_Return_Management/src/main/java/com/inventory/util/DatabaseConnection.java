@@ -1,10 +1,24 @@
 package com.inventory.util;
 
+import com.inventory.metrics.Metrics;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
+    private static final String URL = System.getProperty("db.url",
+            "jdbc:mysql://localhost:3306/returns_management?serverTimezone=UTC&rewriteBatchedStatements=true&useCursorFetch=true");
+    private static final String USER = System.getProperty("db.user", "root");
+    private static final String PASSWORD = System.getProperty("db.password", "password");
+
+    private static final int POOL_SIZE = Integer.getInteger("db.pool.size", 10);
+    private static final long MAX_WAIT_MILLIS = Long.getLong("db.pool.maxWaitMillis", 5000L);
+    private static final long IDLE_TIMEOUT_MILLIS = Long.getLong("db.pool.idleTimeoutMillis", 300000L);
+    private static final int VALIDATION_TIMEOUT_SECONDS = Integer.getInteger("db.pool.validationTimeoutSeconds", 2);
+
+    private static final String POOL_MBEAN_KEYS = "type=ConnectionPool";
+
+    private static volatile ConnectionPool pool;
+
     static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
@@ -12,12 +26,33 @@ public class DatabaseConnection {
             throw new RuntimeException("MySQL JDBC Driver not found", e);
         }
     }
-    
+
+    // Borrows a pooled connection; closing it hands it back to the pool.
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-            "jdbc:mysql://localhost:3306/returns_management?serverTimezone=UTC",
-            "root",
-            "password"
-        );
+        return getPool().borrow();
+    }
+
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(URL, USER, PASSWORD, POOL_SIZE,
+                            MAX_WAIT_MILLIS, IDLE_TIMEOUT_MILLIS, VALIDATION_TIMEOUT_SECONDS);
+                    pool = current;
+                    Metrics.register(POOL_MBEAN_KEYS, current);
+                }
+            }
+        }
+        return current;
+    }
+
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+            Metrics.unregister(POOL_MBEAN_KEYS);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,150 @@
+package com.inventory.util;
+
+import java.util.Arrays;
+
+// Open-addressing int -> int map without boxing. Keys must be positive (0 marks an empty slot), which matches
+// every database ID in this schema. Not thread-safe; callers guard it.
+public class IntIntHashMap {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    public interface Visitor {
+        void visit(int key, int value);
+    }
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private static void checkKey(int key) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive");
+        }
+    }
+
+    public int get(int key, int defaultValue) {
+        checkKey(key);
+        int i = slot(key);
+        return keys[i] == key ? values[i] : defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        checkKey(key);
+        return keys[slot(key)] == key;
+    }
+
+    public void put(int key, int value) {
+        checkKey(key);
+        int i = slot(key);
+        if (keys[i] != key) {
+            keys[i] = key;
+            if (++size > resizeAt) {
+                values[i] = value;
+                rehash(keys.length << 1);
+                return;
+            }
+        }
+        values[i] = value;
+    }
+
+    // Adds delta to the current value (0 if absent) and returns the new value
+    public int addTo(int key, int delta) {
+        checkKey(key);
+        int i = slot(key);
+        if (keys[i] == key) {
+            values[i] += delta;
+            return values[i];
+        }
+        put(key, delta);
+        return delta;
+    }
+
+    public boolean remove(int key) {
+        checkKey(key);
+        int mask = keys.length - 1;
+        int i = slot(key);
+        if (keys[i] != key) {
+            return false;
+        }
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != 0) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.inventory.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded LRU cache with per-entry expiry. Split into independently locked segments so concurrent
+// lookups for different keys rarely contend.
+public class LruCache<K, V> {
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        int perSegment = Math.max(1, (maxSize + SEGMENTS - 1) / SEGMENTS);
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(perSegment, evictions);
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    // Returns null when the key is absent or its entry has expired
+    public V get(K key) {
+        V value = peek(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    // Same as get, without touching the hit/miss counters
+    public V peek(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            CacheEntry<V> entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt < System.currentTimeMillis()) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value, long ttlMillis) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LruCache{size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%}",
+                size(), getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, CacheEntry<V>> {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+        private final transient AtomicLong evictions;
+
+        Segment(int maxSize, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
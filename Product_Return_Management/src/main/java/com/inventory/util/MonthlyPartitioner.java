@@ -0,0 +1,113 @@
+package com.inventory.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// RANGE partitions by month on a date column. Partition pYYYYMM holds rows before the first day of the
+// following month; pmax catches anything beyond the last planned month.
+public class MonthlyPartitioner {
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final String table;
+    private final String idColumn;
+    private final String dateColumn;
+
+    public MonthlyPartitioner(String table, String idColumn, String dateColumn) {
+        this.table = table;
+        this.idColumn = idColumn;
+        this.dateColumn = dateColumn;
+    }
+
+    public boolean isPartitioned(Connection conn) throws SQLException {
+        return !listPartitions(conn).isEmpty();
+    }
+
+    // MySQL requires the partitioning column in every unique key, so the primary key becomes (id, date)
+    public void partition(Connection conn, YearMonth first, YearMonth last) throws SQLException {
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table)
+                .append(" DROP PRIMARY KEY, ADD PRIMARY KEY (").append(idColumn).append(", ").append(dateColumn).append(")")
+                .append(" PARTITION BY RANGE (TO_DAYS(").append(dateColumn).append(")) (");
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            sql.append(partitionDefinition(month)).append(", ");
+        }
+        sql.append("PARTITION pmax VALUES LESS THAN MAXVALUE)");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql.toString());
+        }
+    }
+
+    // Splits pmax so every month up to and including last has its own partition
+    public int addPartitionsThrough(Connection conn, YearMonth last) throws SQLException {
+        List<String> existing = listPartitions(conn);
+        YearMonth next = null;
+        for (String name : existing) {
+            if (!name.equals("pmax")) {
+                YearMonth month = YearMonth.parse(name, NAME_FORMAT).plusMonths(1);
+                if (next == null || month.isAfter(next)) {
+                    next = month;
+                }
+            }
+        }
+        if (next == null || next.isAfter(last)) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table).append(" REORGANIZE PARTITION pmax INTO (");
+        int added = 0;
+        for (YearMonth month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+            sql.append(partitionDefinition(month)).append(", ");
+            added++;
+        }
+        sql.append("PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql.toString());
+        }
+        return added;
+    }
+
+    // Archive path: dropping a partition discards a month of rows without a row-by-row DELETE
+    public int dropPartitionsBefore(Connection conn, YearMonth cutoff) throws SQLException {
+        List<String> toDrop = new ArrayList<>();
+        for (String name : listPartitions(conn)) {
+            if (!name.equals("pmax") && YearMonth.parse(name, NAME_FORMAT).isBefore(cutoff)) {
+                toDrop.add(name);
+            }
+        }
+        if (toDrop.isEmpty()) {
+            return 0;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " DROP PARTITION " + String.join(", ", toDrop));
+        }
+        return toDrop.size();
+    }
+
+    public List<String> listPartitions(Connection conn) throws SQLException {
+        String sql = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL "
+                + "ORDER BY PARTITION_ORDINAL_POSITION";
+        List<String> partitions = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private String partitionDefinition(YearMonth month) {
+        return "PARTITION " + month.format(NAME_FORMAT)
+                + " VALUES LESS THAN (TO_DAYS('" + month.plusMonths(1).atDay(1) + "'))";
+    }
+}
@@ -0,0 +1,235 @@
+package com.inventory.util;
+
+import com.inventory.model.ReturnRequest;
+import java.nio.charset.StandardCharsets;
+
+// Parses one CSV or NDJSON record straight from the read buffer, so only the field values become Strings
+public class ReturnRecordParser {
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final int FIELD_COUNT = 5;
+    private static final String[] JSON_KEYS = { "order_id", "customer_id", "product_id", "reason", "condition" };
+
+    private final Format format;
+    private final String[] fields = new String[FIELD_COUNT];
+    private byte[] scratch = new byte[256];
+    private String error;
+
+    public ReturnRecordParser(Format format) {
+        this.format = format;
+    }
+
+    public static Format detectFormat(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".ndjson") || lower.endsWith(".jsonl") || lower.endsWith(".json")
+                ? Format.NDJSON : Format.CSV;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    // Returns null when the record is malformed; getError() then explains why
+    public ReturnRequest parse(byte[] buf, int start, int end) {
+        error = null;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            fields[i] = null;
+        }
+        boolean parsed = format == Format.CSV ? parseCsv(buf, start, end) : parseJson(buf, start, end);
+        if (!parsed) {
+            return null;
+        }
+        return new ReturnRequest(fields[0], fields[1], fields[2], fields[3], fields[4]);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isHeader(byte[] buf, int start, int end) {
+        if (format != Format.CSV) {
+            return false;
+        }
+        byte[] header = "order_id".getBytes(StandardCharsets.US_ASCII);
+        if (end - start < header.length) {
+            return false;
+        }
+        for (int i = 0; i < header.length; i++) {
+            if (Character.toLowerCase(buf[start + i]) != header[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean parseCsv(byte[] buf, int start, int end) {
+        int field = 0;
+        int pos = start;
+        while (pos <= end) {
+            if (field == FIELD_COUNT) {
+                error = "Too many fields, expected " + FIELD_COUNT;
+                return false;
+            }
+            if (pos < end && buf[pos] == '"') {
+                int len = 0;
+                pos++;
+                while (true) {
+                    if (pos >= end) {
+                        error = "Unterminated quoted field";
+                        return false;
+                    }
+                    if (buf[pos] == '"') {
+                        if (pos + 1 < end && buf[pos + 1] == '"') {
+                            len = append(len, (byte) '"');
+                            pos += 2;
+                            continue;
+                        }
+                        pos++;
+                        break;
+                    }
+                    len = append(len, buf[pos++]);
+                }
+                fields[field++] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+                if (pos < end && buf[pos] != ',') {
+                    error = "Unexpected character after quoted field";
+                    return false;
+                }
+            } else {
+                int fieldStart = pos;
+                while (pos < end && buf[pos] != ',') {
+                    pos++;
+                }
+                fields[field++] = new String(buf, fieldStart, pos - fieldStart, StandardCharsets.UTF_8);
+            }
+            pos++;
+        }
+        if (field != FIELD_COUNT) {
+            error = "Expected " + FIELD_COUNT + " fields but found " + field;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean parseJson(byte[] buf, int start, int end) {
+        int pos = skipWhitespace(buf, start, end);
+        if (pos >= end || buf[pos] != '{') {
+            error = "Record is not a JSON object";
+            return false;
+        }
+        pos++;
+        while (true) {
+            pos = skipWhitespace(buf, pos, end);
+            if (pos < end && buf[pos] == '}') {
+                break;
+            }
+            if (pos >= end || buf[pos] != '"') {
+                error = "Expected JSON key";
+                return false;
+            }
+            int keyStart = pos + 1;
+            int keyEnd = keyStart;
+            while (keyEnd < end && buf[keyEnd] != '"') {
+                keyEnd++;
+            }
+            int key = matchKey(buf, keyStart, keyEnd);
+            pos = skipWhitespace(buf, keyEnd + 1, end);
+            if (pos >= end || buf[pos] != ':') {
+                error = "Expected ':' after JSON key";
+                return false;
+            }
+            pos = skipWhitespace(buf, pos + 1, end);
+            pos = readJsonValue(buf, pos, end, key);
+            if (pos < 0) {
+                return false;
+            }
+            pos = skipWhitespace(buf, pos, end);
+            if (pos < end && buf[pos] == ',') {
+                pos++;
+            } else if (pos < end && buf[pos] == '}') {
+                break;
+            } else {
+                error = "Expected ',' or '}' in JSON object";
+                return false;
+            }
+        }
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            if (fields[i] == null) {
+                error = "Missing field " + JSON_KEYS[i];
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int readJsonValue(byte[] buf, int pos, int end, int key) {
+        if (pos < end && buf[pos] == '"') {
+            int len = 0;
+            pos++;
+            while (pos < end && buf[pos] != '"') {
+                byte b = buf[pos++];
+                if (b == '\\' && pos < end) {
+                    byte escaped = buf[pos++];
+                    b = escaped == 'n' ? (byte) '\n' : escaped == 't' ? (byte) '\t' : escaped;
+                }
+                len = append(len, b);
+            }
+            if (pos >= end) {
+                error = "Unterminated JSON string";
+                return -1;
+            }
+            if (key >= 0) {
+                fields[key] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+            return pos + 1;
+        }
+        int valueStart = pos;
+        while (pos < end && buf[pos] != ',' && buf[pos] != '}' && buf[pos] > ' ') {
+            pos++;
+        }
+        if (pos == valueStart) {
+            error = "Missing JSON value";
+            return -1;
+        }
+        if (key >= 0) {
+            fields[key] = new String(buf, valueStart, pos - valueStart, StandardCharsets.UTF_8);
+        }
+        return pos;
+    }
+
+    private int matchKey(byte[] buf, int start, int end) {
+        for (int k = 0; k < JSON_KEYS.length; k++) {
+            String candidate = JSON_KEYS[k];
+            if (candidate.length() != end - start) {
+                continue;
+            }
+            int i = 0;
+            while (i < candidate.length() && candidate.charAt(i) == buf[start + i]) {
+                i++;
+            }
+            if (i == candidate.length()) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private int skipWhitespace(byte[] buf, int pos, int end) {
+        while (pos < end && (buf[pos] == ' ' || buf[pos] == '\t' || buf[pos] == '\r' || buf[pos] == '\n')) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int append(int len, byte b) {
+        if (len == scratch.length) {
+            byte[] grown = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, grown, 0, len);
+            scratch = grown;
+        }
+        scratch[len] = b;
+        return len + 1;
+    }
+}
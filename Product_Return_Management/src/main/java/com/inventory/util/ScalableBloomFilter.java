@@ -0,0 +1,151 @@
+package com.inventory.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter that grows by adding stages: each new stage holds twice as many keys as the last at half
+// its false-positive rate, so the overall rate stays under twice the initial one however many keys arrive.
+// Lookups and inserts are lock-free; only adding a stage takes a lock.
+public class ScalableBloomFilter {
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final int initialCapacity;
+    private final double falsePositiveRate;
+    private volatile Stage[] stages;
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        this.initialCapacity = initialCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.stages = new Stage[] { new Stage(initialCapacity, falsePositiveRate) };
+    }
+
+    // False means the key was definitely never added
+    public boolean mightContain(String key, int discriminator) {
+        long h1 = hash(key, discriminator, 0x9E3779B97F4A7C15L);
+        long h2 = hash(key, discriminator, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void add(String key, int discriminator) {
+        long h1 = hash(key, discriminator, 0x9E3779B97F4A7C15L);
+        long h2 = hash(key, discriminator, 0xC2B2AE3D27D4EB4FL) | 1;
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.count.get() >= last.capacity) {
+            last = grow(current);
+        }
+        last.add(h1, h2);
+    }
+
+    private synchronized Stage grow(Stage[] seen) {
+        Stage[] current = stages;
+        if (current != seen) {
+            return current[current.length - 1];
+        }
+        Stage previous = current[current.length - 1];
+        long capacity = Math.min((long) previous.capacity * 2, Integer.MAX_VALUE / 16);
+        Stage next = new Stage((int) capacity, previous.falsePositiveRate * TIGHTENING_RATIO);
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = next;
+        stages = grown;
+        return next;
+    }
+
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (Stage stage : stages) {
+            count += stage.count.get();
+        }
+        return count;
+    }
+
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.bits.length() * 8L;
+        }
+        return bytes;
+    }
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    // FNV-1a over the key's chars and the discriminator, finished with a 64-bit mix
+    private static long hash(String key, int discriminator, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= discriminator;
+        h *= 0x100000001B3L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static class Stage {
+        private final int capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashes;
+        private final AtomicInteger count = new AtomicInteger();
+
+        Stage(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    // another thread set a bit in the same word; retry
+                }
+            }
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.inventory.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Applies numbered schema migrations in order and records each one in schema_version, so startup
+// brings any database up to the layout the code expects.
+public class SchemaMigrator {
+    private static final boolean PARTITIONING = Boolean.getBoolean("db.partitioning");
+    private static final int PARTITION_MONTHS_BACK = Integer.getInteger("db.partitioning.monthsBack", 24);
+    private static final int PARTITION_MONTHS_AHEAD = Integer.getInteger("db.partitioning.monthsAhead", 3);
+
+    public interface Migration {
+        int getVersion();
+        String getDescription();
+        boolean isEnabled();
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator() {
+        migrations.add(new SqlMigration(1, "base_schema"));
+        migrations.add(new SqlMigration(2, "report_indexes"));
+        migrations.add(new SqlMigration(3, "return_status_hourly"));
+        migrations.add(new PartitioningMigration(4));
+        migrations.add(new SqlMigration(5, "journal_checkpoint"));
+        migrations.add(new SqlMigration(6, "return_history_indexes"));
+        migrations.add(new SqlMigration(7, "return_keys"));
+        migrations.add(new SqlMigration(8, "inventory_log_daily"));
+    }
+
+    public List<Migration> getMigrations() {
+        return migrations;
+    }
+
+    public int migrate() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return migrate(conn);
+        }
+    }
+
+    public int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT NOT NULL, "
+                    + "description VARCHAR(200) NOT NULL, "
+                    + "installed_on DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "PRIMARY KEY (version))");
+        }
+
+        Set<Integer> applied = appliedVersions(conn);
+        int count = 0;
+        for (Migration migration : migrations) {
+            if (applied.contains(migration.getVersion()) || !migration.isEnabled()) {
+                continue;
+            }
+            System.out.println("Applying schema migration V" + migration.getVersion() + " " + migration.getDescription());
+            migration.apply(conn);
+            recordVersion(conn, migration);
+            count++;
+        }
+        if (PARTITIONING) {
+            extendPartitions(conn);
+        }
+        return count;
+    }
+
+    public Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private void recordVersion(Connection conn, Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description) VALUES (?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setString(2, migration.getDescription());
+            stmt.executeUpdate();
+        }
+    }
+
+    public static List<MonthlyPartitioner> partitioners() {
+        List<MonthlyPartitioner> partitioners = new ArrayList<>();
+        partitioners.add(new MonthlyPartitioner("returns", "return_id", "created_date"));
+        partitioners.add(new MonthlyPartitioner("inventory_log", "log_id", "action_date"));
+        return partitioners;
+    }
+
+    // Keeps future months split out of pmax; run periodically when partitioning is enabled
+    public static void extendPartitions(Connection conn) throws SQLException {
+        YearMonth last = YearMonth.now().plusMonths(PARTITION_MONTHS_AHEAD);
+        for (MonthlyPartitioner partitioner : partitioners()) {
+            if (partitioner.isPartitioned(conn)) {
+                partitioner.addPartitionsThrough(conn, last);
+            }
+        }
+    }
+
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String statement = current.toString().trim();
+                statements.add(statement.substring(0, statement.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (current.toString().trim().length() > 0) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static class SqlMigration implements Migration {
+        private final int version;
+        private final String description;
+
+        SqlMigration(int version, String description) {
+            this.version = version;
+            this.description = description;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void apply(Connection conn) throws SQLException {
+            String resource = "/db/migration/V" + version + "__" + description + ".sql";
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : splitStatements(readResource(resource))) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+
+        private String readResource(String resource) throws SQLException {
+            InputStream in = SchemaMigrator.class.getResourceAsStream(resource);
+            if (in == null) {
+                throw new SQLException("Migration script not found: " + resource);
+            }
+            StringBuilder script = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    script.append(line).append('\n');
+                }
+            } catch (IOException e) {
+                throw new SQLException("Could not read migration script " + resource + ": " + e.getMessage());
+            }
+            return script.toString();
+        }
+    }
+
+    // Opt-in with -Ddb.partitioning=true; needs no foreign keys on returns/inventory_log, which V1 does not create
+    private static class PartitioningMigration implements Migration {
+        private final int version;
+
+        PartitioningMigration(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getDescription() {
+            return "monthly_partitioning";
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return PARTITIONING;
+        }
+
+        @Override
+        public void apply(Connection conn) throws SQLException {
+            YearMonth now = YearMonth.now();
+            YearMonth first = now.minusMonths(PARTITION_MONTHS_BACK);
+            YearMonth last = now.plusMonths(PARTITION_MONTHS_AHEAD);
+            for (MonthlyPartitioner partitioner : partitioners()) {
+                if (!partitioner.isPartitioned(conn)) {
+                    partitioner.partition(conn, first, last);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.inventory.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Append-only log of checksummed records in fixed-size memory-mapped segment files. Each record is
+// [length][crc32][sequence][payload]; the zero-filled tail of a preallocated segment marks its end, so
+// recovery scans forward until a record is missing or fails its checksum.
+public class SegmentedJournal implements AutoCloseable {
+    private static final int HEADER_BYTES = 16;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    // Segment files whose delete failed, e.g. on Windows while the mapping was still live; retried by deleteThrough
+    private final List<Path> pendingDeletes = new ArrayList<>();
+    private Segment active;
+    private long nextSequence = 1;
+    private boolean closed;
+
+    public SegmentedJournal(Path directory, int segmentBytes) throws IOException {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size too small");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public static class Record {
+        private final long sequence;
+        private final byte[] payload;
+
+        Record(long sequence, byte[] payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private static class Segment {
+        private final Path path;
+        private final long firstSequence;
+        private MappedByteBuffer buffer;
+        private long lastSequence;
+        private int writePosition;
+
+        Segment(Path path, long firstSequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long first = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+            Segment segment = new Segment(file, first, map(file, Files.size(file)));
+            scan(segment);
+            if (segment.lastSequence < segment.firstSequence) {
+                release(segment);
+                continue;
+            }
+            if (segment.firstSequence < nextSequence) {
+                throw new IOException("Journal segment " + name + " overlaps sequence " + (nextSequence - 1));
+            }
+            segments.add(segment);
+            nextSequence = segment.lastSequence + 1;
+        }
+        if (!segments.isEmpty()) {
+            active = segments.get(segments.size() - 1);
+            // Zero anything after the last good record so a torn write is never read back later
+            for (int i = active.writePosition; i < active.buffer.capacity(); i++) {
+                if (active.buffer.get(i) != 0) {
+                    active.buffer.put(i, (byte) 0);
+                }
+            }
+        }
+    }
+
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int pos = 0;
+        long expected = segment.firstSequence;
+        while (pos + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || length > buffer.capacity() - pos - HEADER_BYTES) {
+                break;
+            }
+            int crc = buffer.getInt(pos + 4);
+            long sequence = buffer.getLong(pos + 8);
+            if (sequence != expected || crc != checksum(buffer, pos + 8, length + 8)) {
+                break;
+            }
+            segment.lastSequence = sequence;
+            expected++;
+            pos += HEADER_BYTES + length;
+        }
+        segment.writePosition = pos;
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        java.nio.ByteBuffer view = buffer.duplicate();
+        view.position(offset).limit(offset + length);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer map(Path file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    // Returns the sequence number assigned to the record
+    public synchronized long append(byte[] payload) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        int needed = HEADER_BYTES + payload.length;
+        if (needed > segmentBytes) {
+            throw new IOException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        }
+        if (active == null || active.writePosition + needed > active.buffer.capacity()) {
+            roll();
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int pos = active.writePosition;
+        long sequence = nextSequence;
+
+        buffer.putLong(pos + 8, sequence);
+        for (int i = 0; i < payload.length; i++) {
+            buffer.put(pos + HEADER_BYTES + i, payload[i]);
+        }
+        buffer.putInt(pos + 4, checksum(buffer, pos + 8, payload.length + 8));
+        // Length goes last: until it is non-zero, recovery treats the slot as the end of the log
+        buffer.putInt(pos, payload.length);
+
+        active.writePosition = pos + needed;
+        active.lastSequence = sequence;
+        nextSequence++;
+        return sequence;
+    }
+
+    private void roll() throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, nextSequence, SUFFIX));
+        Segment segment = new Segment(file, nextSequence, map(file, segmentBytes));
+        if (active != null) {
+            active.buffer.force();
+        }
+        segments.add(segment);
+        active = segment;
+    }
+
+    // Flushes appended records to disk; mapped writes already survive a process crash, this covers power loss
+    public synchronized void force() {
+        if (active != null && !closed) {
+            active.buffer.force();
+        }
+    }
+
+    // Reads up to maxRecords records with sequence numbers after the given one
+    public synchronized List<Record> read(long afterSequence, int maxRecords) {
+        List<Record> records = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.lastSequence <= afterSequence) {
+                continue;
+            }
+            MappedByteBuffer buffer = segment.buffer;
+            int pos = 0;
+            long sequence = segment.firstSequence;
+            while (pos < segment.writePosition && records.size() < maxRecords) {
+                int length = buffer.getInt(pos);
+                if (sequence > afterSequence) {
+                    byte[] payload = new byte[length];
+                    for (int i = 0; i < length; i++) {
+                        payload[i] = buffer.get(pos + HEADER_BYTES + i);
+                    }
+                    records.add(new Record(sequence, payload));
+                }
+                pos += HEADER_BYTES + length;
+                sequence++;
+            }
+            if (records.size() >= maxRecords) {
+                break;
+            }
+        }
+        return records;
+    }
+
+    // Deletes sealed segments whose records are all at or before the given sequence. A file that cannot be
+    // deleted yet stays queued and is retried on the next call rather than failing the caller.
+    public synchronized int deleteThrough(long sequence) {
+        int deleted = 0;
+        for (Iterator<Path> it = pendingDeletes.iterator(); it.hasNext(); ) {
+            if (tryDelete(it.next())) {
+                it.remove();
+                deleted++;
+            }
+        }
+        while (segments.size() > 1 && segments.get(0).lastSequence <= sequence) {
+            if (release(segments.remove(0))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // Drops the mapping before the delete, since Windows refuses to delete a file that is still mapped
+    private boolean release(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        segment.buffer = null;
+        unmap(buffer);
+        if (tryDelete(segment.path)) {
+            return true;
+        }
+        pendingDeletes.add(segment.path);
+        return false;
+    }
+
+    private static boolean tryDelete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Releases the mapping now instead of at garbage collection where the JDK allows it. Only called once the
+    // segment is out of the list, so no reader can still touch the buffer.
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector; the delete is retried until the mapping is gone
+        }
+    }
+
+    // Keeps new sequence numbers above ones already consumed elsewhere, e.g. after the directory was wiped
+    public synchronized void advanceTo(long sequence) {
+        if (sequence >= nextSequence && (active == null || active.lastSequence < sequence)) {
+            nextSequence = sequence + 1;
+            active = null;
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            force();
+            closed = true;
+        }
+    }
+}
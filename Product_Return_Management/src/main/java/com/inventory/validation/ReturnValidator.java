@@ -0,0 +1,64 @@
+package com.inventory.validation;
+
+import com.inventory.model.ProductCondition;
+import com.inventory.model.ReturnRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The field rules for a return, shared by CustomerReturn and ReturnService. Collects every violation
+// instead of stopping at the first; a valid return costs no allocation.
+public final class ReturnValidator {
+    public static final String INVALID_CUSTOMER_ID = "Invalid customer ID";
+    public static final String INVALID_PRODUCT_ID = "Invalid product ID";
+    public static final String REASON_REQUIRED = "Return reason is required";
+    public static final String INVALID_CONDITION = "Invalid product condition";
+
+    private ReturnValidator() {
+    }
+
+    public static List<String> validate(int customerId, int productId, String reason, CharSequence condition) {
+        List<String> violations = Collections.emptyList();
+        if (customerId <= 0) {
+            violations = add(violations, INVALID_CUSTOMER_ID);
+        }
+        if (productId <= 0) {
+            violations = add(violations, INVALID_PRODUCT_ID);
+        }
+        if (Validators.isBlank(reason)) {
+            violations = add(violations, REASON_REQUIRED);
+        }
+        if (ProductCondition.parse(condition) == null) {
+            violations = add(violations, INVALID_CONDITION);
+        }
+        return violations;
+    }
+
+    public static List<String> validate(ReturnRequest request) {
+        return validate(Validators.parsePositiveId(request.getCustomerId()),
+                Validators.parsePositiveId(request.getProductId()),
+                request.getReason(), request.getCondition());
+    }
+
+    // Violations keyed by position in the input; requests that pass are left out
+    public static Map<Integer, List<String>> validateAll(List<ReturnRequest> requests) {
+        Map<Integer, List<String>> invalid = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            List<String> violations = validate(requests.get(i));
+            if (!violations.isEmpty()) {
+                invalid.put(i, violations);
+            }
+        }
+        return invalid;
+    }
+
+    private static List<String> add(List<String> violations, String violation) {
+        if (violations.isEmpty()) {
+            violations = new ArrayList<>(4);
+        }
+        violations.add(violation);
+        return violations;
+    }
+}
@@ -0,0 +1,83 @@
+package com.inventory.validation;
+
+// Hand-written equivalents of the regexes the model classes used to run through String.matches,
+// so hot-path validation neither compiles patterns nor allocates.
+public final class Validators {
+    private Validators() {
+    }
+
+    // Same language as ^[A-Za-z0-9+_.-]+@(.+)$
+    public static boolean isValidEmail(CharSequence email) {
+        if (email == null) {
+            return false;
+        }
+        int length = email.length();
+        int i = 0;
+        while (i < length && isLocalPartChar(email.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i >= length - 1 || email.charAt(i) != '@') {
+            return false;
+        }
+        for (int j = i + 1; j < length; j++) {
+            if (isLineTerminator(email.charAt(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // Parses a positive int ID, ignoring surrounding whitespace; returns -1 instead of throwing on bad input
+    public static int parsePositiveId(CharSequence value) {
+        if (value == null) {
+            return -1;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end && value.charAt(start) == '+') {
+            start++;
+        }
+        if (start == end) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+            if (result > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return result == 0 ? -1 : (int) result;
+    }
+
+    public static boolean isBlank(CharSequence value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
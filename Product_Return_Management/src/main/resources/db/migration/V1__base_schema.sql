@@ -0,0 +1,38 @@
+-- Tables the application has always expected; IF NOT EXISTS keeps this safe on existing databases
+CREATE TABLE IF NOT EXISTS customers (
+    customer_id INT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    phone VARCHAR(30),
+    PRIMARY KEY (customer_id)
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    product_id INT NOT NULL,
+    name VARCHAR(100) NOT NULL,
+    description TEXT,
+    price DECIMAL(10, 2) NOT NULL,
+    current_stock INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id)
+);
+
+CREATE TABLE IF NOT EXISTS returns (
+    return_id INT NOT NULL AUTO_INCREMENT,
+    order_id VARCHAR(50),
+    customer_id INT NOT NULL,
+    product_id INT NOT NULL,
+    reason VARCHAR(255) NOT NULL,
+    product_condition VARCHAR(20),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (return_id)
+);
+
+CREATE TABLE IF NOT EXISTS inventory_log (
+    log_id INT NOT NULL AUTO_INCREMENT,
+    product_id INT NOT NULL,
+    quantity_change INT NOT NULL,
+    action_type VARCHAR(20) NOT NULL,
+    action_date DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (log_id)
+);
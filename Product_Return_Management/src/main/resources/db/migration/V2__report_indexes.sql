@@ -0,0 +1,8 @@
+-- Report window scans filter on created_date and group by status
+CREATE INDEX idx_returns_created_status ON returns (created_date, status);
+
+-- Per customer/product lookups on the return path
+CREATE INDEX idx_returns_customer_product ON returns (customer_id, product_id);
+
+-- Stock history per product over time
+CREATE INDEX idx_inventory_log_product_date ON inventory_log (product_id, action_date);
@@ -0,0 +1,7 @@
+-- Hourly per-status counters maintained by ReturnRollupService
+CREATE TABLE IF NOT EXISTS return_status_hourly (
+    bucket_start DATETIME NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    return_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, status)
+);
@@ -0,0 +1,7 @@
+-- Last intake journal sequence applied to the database, written in the same transaction as the rows it covers
+CREATE TABLE IF NOT EXISTS journal_checkpoint (
+    journal_name VARCHAR(100) NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (journal_name)
+);
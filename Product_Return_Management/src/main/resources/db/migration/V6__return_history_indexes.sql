@@ -0,0 +1,4 @@
+-- Customer and product history pages seek on (created_date, return_id) within one customer or product
+CREATE INDEX idx_returns_customer_history ON returns (customer_id, created_date, return_id);
+
+CREATE INDEX idx_returns_product_history ON returns (product_id, created_date, return_id);
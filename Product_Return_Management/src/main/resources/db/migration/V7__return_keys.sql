@@ -0,0 +1,14 @@
+-- One row per (order_id, product_id) that has been returned, pointing at the return that claimed it. Kept
+-- apart from returns because a partitioned returns table cannot carry a unique key without created_date.
+CREATE TABLE IF NOT EXISTS return_keys (
+    order_id VARCHAR(50) NOT NULL,
+    product_id INT NOT NULL,
+    return_id INT NOT NULL,
+    PRIMARY KEY (order_id, product_id)
+);
+
+-- Existing duplicates resolve to the earliest return
+INSERT INTO return_keys (order_id, product_id, return_id)
+SELECT order_id, product_id, MIN(return_id) FROM returns
+WHERE order_id IS NOT NULL AND order_id <> ''
+GROUP BY order_id, product_id;
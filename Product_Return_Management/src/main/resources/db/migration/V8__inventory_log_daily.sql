@@ -0,0 +1,19 @@
+-- Per-product, per-day totals of inventory_log rows that InventoryLogService has compacted
+CREATE TABLE IF NOT EXISTS inventory_log_daily (
+    product_id INT NOT NULL,
+    action_day DATE NOT NULL,
+    action_type VARCHAR(20) NOT NULL,
+    quantity_change BIGINT NOT NULL DEFAULT 0,
+    entry_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, action_day, action_type)
+);
+
+-- Compacted raw rows, kept only when compaction runs with -DinventoryLog.compaction.archive=true
+CREATE TABLE IF NOT EXISTS inventory_log_archive (
+    log_id INT NOT NULL,
+    product_id INT NOT NULL,
+    quantity_change INT NOT NULL,
+    action_type VARCHAR(20) NOT NULL,
+    action_date DATETIME NOT NULL,
+    PRIMARY KEY (log_id)
+);
@@ -0,0 +1,93 @@
+package com.inventory.benchmark;
+
+import com.inventory.util.DatabaseConnection;
+import com.inventory.util.SchemaMigrator;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// In-memory H2 in MySQL mode standing in for the returns_management database, so benchmarks run offline.
+// DatabaseConnection reads its URL from system properties, so this must run before the pool is first used.
+public class EmbeddedDatabase {
+    public static final String URL = "jdbc:h2:mem:returns_management;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private EmbeddedDatabase() {
+    }
+
+    public static void start(int customers, int products) throws SQLException {
+        System.setProperty("db.url", URL);
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE ALIAS IF NOT EXISTS DATE_FORMAT FOR '" + EmbeddedDatabase.class.getName() + ".dateFormat'");
+            }
+            new SchemaMigrator().migrate(conn);
+            seed(conn, customers, products);
+        }
+    }
+
+    private static void seed(Connection conn, int customers, int products) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "MERGE INTO customers (customer_id, name, email, phone) KEY (customer_id) VALUES (?, ?, ?, ?)")) {
+            for (int id = 1; id <= customers; id++) {
+                stmt.setInt(1, id);
+                stmt.setString(2, "Customer " + id);
+                stmt.setString(3, "customer" + id + "@example.com");
+                stmt.setString(4, "555-0100");
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "MERGE INTO products (product_id, name, description, price, current_stock) KEY (product_id) VALUES (?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= products; id++) {
+                stmt.setInt(1, id);
+                stmt.setString(2, "Product " + id);
+                stmt.setString(3, "Benchmark product");
+                stmt.setDouble(4, 19.99);
+                stmt.setInt(5, 100);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    public static void stop() {
+        DatabaseConnection.shutdown();
+    }
+
+    // The subset of MySQL DATE_FORMAT specifiers the application uses
+    public static String dateFormat(Timestamp value, String format) {
+        if (value == null) {
+            return null;
+        }
+        LocalDateTime t = value.toLocalDateTime();
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c != '%' || i + 1 == format.length()) {
+                out.append(c);
+                continue;
+            }
+            char spec = format.charAt(++i);
+            switch (spec) {
+                case 'Y': out.append(String.format("%04d", t.getYear())); break;
+                case 'm': out.append(String.format("%02d", t.getMonthValue())); break;
+                case 'd': out.append(String.format("%02d", t.getDayOfMonth())); break;
+                case 'H': out.append(String.format("%02d", t.getHour())); break;
+                case 'i': out.append(String.format("%02d", t.getMinute())); break;
+                case 's': out.append(String.format("%02d", t.getSecond())); break;
+                default: out.append(spec);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.inventory.benchmark;
+
+import com.inventory.model.CustomerReturn;
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRequest;
+import com.inventory.repository.Storage;
+import com.inventory.repository.StorageEngine;
+import com.inventory.repository.Transaction;
+import com.inventory.service.ReturnService;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The return path on the in-memory storage engine: domain logic without database latency. Compare with
+// PipelineBenchmark for what the database adds.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dstorage.engine=memory")
+@State(Scope.Benchmark)
+public class InMemoryPipelineBenchmark {
+    @Param({ "1000" })
+    public int customers;
+
+    @Param({ "500" })
+    public int products;
+
+    private ReturnService returnService;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        StorageEngine storage = Storage.getEngine();
+        try (Transaction tx = storage.begin()) {
+            for (int id = 1; id <= customers; id++) {
+                storage.customers().create(tx, id, "Customer " + id, "customer" + id + "@example.com", "555-0100");
+            }
+            for (int id = 1; id <= products; id++) {
+                storage.products().create(tx, id, "Product " + id, "Benchmark product", 19.99, 100);
+            }
+            tx.commit();
+        }
+        returnService = new ReturnService();
+    }
+
+    @Benchmark
+    public ReturnOutcome processReturn() {
+        return submit();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ReturnOutcome processReturnConcurrently() {
+        return submit();
+    }
+
+    // Fails the run on an error rather than timing the error path
+    private ReturnOutcome submit() {
+        int n = sequence.incrementAndGet();
+        ReturnOutcome outcome = returnService.processReturn(new ReturnRequest("ORD-" + n, Integer.toString(n % customers + 1),
+                Integer.toString(n % products + 1), "Changed mind", "Good"));
+        if (!outcome.isSuccess()) {
+            throw new IllegalStateException("Return " + n + " failed: " + outcome.getMessage());
+        }
+        return outcome;
+    }
+
+    @Benchmark
+    public boolean customerReturn() {
+        int n = sequence.incrementAndGet();
+        return new CustomerReturn(n % customers + 1, n % products + 1, "Changed mind", n % 4 == 0 ? "Damaged" : "Good").processReturn();
+    }
+
+    @Benchmark
+    public Map<String, Long> generateWeeklyReport() throws SQLException {
+        return returnService.reportCounts(2);
+    }
+}
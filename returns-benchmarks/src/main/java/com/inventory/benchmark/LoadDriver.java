@@ -0,0 +1,279 @@
+package com.inventory.benchmark;
+
+import com.inventory.exception.InvalidReturnException;
+import com.inventory.metrics.LatencyHistogram;
+import com.inventory.metrics.Metrics;
+import com.inventory.metrics.TransactionStatsMXBean;
+import com.inventory.model.CustomerReturn;
+import com.inventory.model.ProductCondition;
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRequest;
+import com.inventory.repository.Storage;
+import com.inventory.repository.StorageEngine;
+import com.inventory.repository.Transaction;
+import com.inventory.service.ReturnService;
+import com.inventory.util.ConnectionPool;
+import com.inventory.util.DatabaseConnection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Soak test for return intake: generates synthetic returns against the embedded database (or the in-memory
+// engine with -Dstorage.engine=memory) and prints throughput, latency, rollbacks and connection pool use
+// every few seconds, so the load at which intake saturates shows up as a flat throughput line with a
+// climbing p99. Configured with -Dload.* properties:
+//   threads, rate         worker threads, and the total target in returns/sec (0 runs each thread flat out)
+//   durationSeconds       how long to run; reportSeconds between progress lines
+//   customers, products   rows seeded before the run
+//   zipfExponent          skew of product popularity; 0 is uniform, around 1 gives a few very hot SKUs
+//   damagedShare          share of returns in Damaged condition
+//   newCustomerShare      share of returns from customers registered just before returning
+//   customerReturnShare   share going through CustomerReturn (inspection and stock) rather than ReturnService
+// With a target rate, latency is measured from when each return was due to start rather than when it did,
+// so a stalled system shows up in the percentiles instead of silently lowering the offered load.
+// Run with: java -Dload.rate=500 -cp target/benchmarks.jar com.inventory.benchmark.LoadDriver
+public class LoadDriver {
+    private static final String[] REASONS = { "Damaged in transit", "Wrong size", "Changed mind", "Not as described", "Defective" };
+    private static final long SAMPLE_MILLIS = 100;
+
+    private final int threads = Integer.getInteger("load.threads", 8);
+    private final int rate = Integer.getInteger("load.rate", 0);
+    private final int durationSeconds = Integer.getInteger("load.durationSeconds", 60);
+    private final int reportSeconds = Integer.getInteger("load.reportSeconds", 5);
+    private final int customers = Integer.getInteger("load.customers", 10000);
+    private final int products = Integer.getInteger("load.products", 1000);
+    private final double zipfExponent = Double.parseDouble(System.getProperty("load.zipfExponent", "1.0"));
+    private final double damagedShare = Double.parseDouble(System.getProperty("load.damagedShare", "0.2"));
+    private final double newCustomerShare = Double.parseDouble(System.getProperty("load.newCustomerShare", "0.02"));
+    private final double customerReturnShare = Double.parseDouble(System.getProperty("load.customerReturnShare", "0.5"));
+
+    private final StorageEngine storage = Storage.getEngine();
+    private final boolean inMemory = Storage.isInMemory();
+    private ReturnService returnService;
+    private ZipfSampler productSampler;
+
+    private final AtomicInteger nextCustomerId = new AtomicInteger();
+    private final AtomicInteger nextOrder = new AtomicInteger();
+    private final LatencyHistogram total = new LatencyHistogram("load.total");
+    private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram("load.interval"));
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder newCustomers = new LongAdder();
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver().run();
+    }
+
+    public void run() throws SQLException, InterruptedException {
+        if (threads <= 0 || durationSeconds <= 0 || reportSeconds <= 0 || customers <= 0 || products <= 0) {
+            throw new IllegalArgumentException("load.threads, durationSeconds, reportSeconds, customers and products must be positive");
+        }
+        System.out.printf("Seeding %d customers and %d products (%s storage)%n", customers, products, storage.getName());
+        seed();
+        returnService = new ReturnService();
+        productSampler = new ZipfSampler(products, zipfExponent);
+        nextCustomerId.set(customers);
+        System.out.printf("Running %d threads for %d s at %s, zipf=%.2f, damaged=%.0f%%, new customers=%.0f%%, via CustomerReturn=%.0f%%%n",
+                threads, durationSeconds, rate > 0 ? rate + " returns/sec" : "full speed", zipfExponent,
+                damagedShare * 100, newCustomerShare * 100, customerReturnShare * 100);
+
+        List<Thread> workers = new ArrayList<>();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> work(startNanos), "load-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        report(startNanos);
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        printSummary(System.nanoTime() - startNanos);
+        if (!inMemory) {
+            EmbeddedDatabase.stop();
+        }
+    }
+
+    private void seed() throws SQLException {
+        if (!inMemory) {
+            EmbeddedDatabase.start(customers, products);
+            return;
+        }
+        try (Transaction tx = storage.begin()) {
+            for (int id = 1; id <= customers; id++) {
+                storage.customers().create(tx, id, "Customer " + id, "customer" + id + "@example.com", "555-0100");
+            }
+            for (int id = 1; id <= products; id++) {
+                storage.products().create(tx, id, "Product " + id, "Benchmark product", 19.99, 100);
+            }
+            tx.commit();
+        }
+    }
+
+    // With a target rate each thread owns an equal share of it and keeps to its own schedule
+    private void work(long startNanos) {
+        long periodNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * threads / rate : 0;
+        long dueNanos = startNanos + (periodNanos > 0 ? ThreadLocalRandom.current().nextLong(periodNanos) : 0);
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        while (running && System.nanoTime() < endNanos) {
+            long start = System.nanoTime();
+            if (periodNanos > 0) {
+                if (dueNanos >= endNanos) {
+                    break;
+                }
+                long wait;
+                while ((wait = dueNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                start = dueNanos;
+                dueNanos += periodNanos;
+            }
+            submitOne();
+            long elapsed = System.nanoTime() - start;
+            total.record(elapsed);
+            interval.get().record(elapsed);
+        }
+    }
+
+    private void submitOne() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int product = productSampler.next(random);
+        String condition = random.nextDouble() < damagedShare ? ProductCondition.DAMAGED.getLabel() : ProductCondition.GOOD.getLabel();
+        String reason = REASONS[random.nextInt(REASONS.length)];
+        try {
+            // Returning customers come from the seeded range only: an ID another thread has not committed yet
+            // would be cached as unknown
+            int customer = random.nextDouble() < newCustomerShare ? registerCustomer() : random.nextInt(customers) + 1;
+            if (random.nextDouble() < customerReturnShare) {
+                new CustomerReturn(customer, product, reason, condition).processReturn();
+                accepted.increment();
+            } else {
+                ReturnRequest request = new ReturnRequest("LOAD-" + nextOrder.incrementAndGet(),
+                        Integer.toString(customer), Integer.toString(product), reason, condition);
+                ReturnOutcome outcome = returnService.processReturn(request);
+                (outcome.isSuccess() ? accepted : rejected).increment();
+            }
+        } catch (InvalidReturnException e) {
+            rejected.increment();
+        } catch (SQLException | RuntimeException e) {
+            errors.increment();
+        }
+    }
+
+    // Stands in for the interactive sign-up in processNewReturn, which prompts on the console
+    private int registerCustomer() throws SQLException {
+        int customerId = nextCustomerId.incrementAndGet();
+        try (Transaction tx = storage.begin()) {
+            storage.customers().create(tx, customerId, "Customer " + customerId, "customer" + customerId + "@example.com", "555-0100");
+            tx.commit();
+        }
+        newCustomers.increment();
+        return customerId;
+    }
+
+    // Samples pool use every SAMPLE_MILLIS and prints one line per report interval until the run ends
+    private void report(long startNanos) throws InterruptedException {
+        System.out.printf("%8s %10s %9s %9s %10s %10s %9s %11s %11s %9s%n", "time(s)", "returns/s", "accepted", "rejected",
+                "p50(ms)", "p99(ms)", "rollbacks", "pool(avg)", "pool(peak)", "timeouts");
+        TransactionStatsMXBean transactions = Metrics.getTransactionStats();
+        ConnectionPool pool = inMemory ? null : DatabaseConnection.getPool();
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long lastNanos = startNanos;
+        long lastAccepted = 0;
+        long lastRejected = 0;
+        long lastRollbacks = transactions.getRollbacks();
+        long lastTimeouts = pool == null ? 0 : pool.getTimeoutCount();
+
+        while (System.nanoTime() < endNanos) {
+            long reportEnd = Math.min(endNanos, lastNanos + TimeUnit.SECONDS.toNanos(reportSeconds));
+            long activeSum = 0;
+            int samples = 0;
+            int peak = 0;
+            long now;
+            while ((now = System.nanoTime()) < reportEnd) {
+                Thread.sleep(Math.min(SAMPLE_MILLIS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(reportEnd - now))));
+                if (pool != null) {
+                    int active = pool.getActiveCount();
+                    activeSum += active;
+                    peak = Math.max(peak, active);
+                    samples++;
+                }
+            }
+            LatencyHistogram window = interval.getAndSet(new LatencyHistogram("load.interval"));
+            double seconds = (now - lastNanos) / 1_000_000_000.0;
+            long acceptedNow = accepted.sum();
+            long rejectedNow = rejected.sum() + errors.sum();
+            long rollbacks = transactions.getRollbacks();
+            long timeouts = pool == null ? 0 : pool.getTimeoutCount();
+            System.out.printf("%8.0f %10.0f %9d %9d %10.3f %10.3f %9d %11s %11s %9d%n",
+                    (now - startNanos) / 1_000_000_000.0, window.getCount() / seconds,
+                    acceptedNow - lastAccepted, rejectedNow - lastRejected,
+                    window.getP50Micros() / 1000, window.getP99Micros() / 1000, rollbacks - lastRollbacks,
+                    pool == null ? "-" : String.format("%.1f/%d", samples == 0 ? 0.0 : (double) activeSum / samples, pool.getMaxSize()),
+                    pool == null ? "-" : peak + "/" + pool.getMaxSize(), timeouts - lastTimeouts);
+            lastNanos = now;
+            lastAccepted = acceptedNow;
+            lastRejected = rejectedNow;
+            lastRollbacks = rollbacks;
+            lastTimeouts = timeouts;
+        }
+    }
+
+    private void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        TransactionStatsMXBean transactions = Metrics.getTransactionStats();
+        System.out.println();
+        System.out.printf("Submitted %d returns in %.1f s (%.0f returns/sec): %d accepted, %d rejected, %d errors, %d new customers%n",
+                total.getCount(), seconds, total.getCount() / seconds, accepted.sum(), rejected.sum(), errors.sum(), newCustomers.sum());
+        System.out.printf("Latency: mean=%.2f ms, p50=%.2f ms, p99=%.2f ms, p99.9=%.2f ms, max=%.2f ms%n",
+                total.getMeanMicros() / 1000, total.getP50Micros() / 1000, total.getP99Micros() / 1000,
+                total.getP999Micros() / 1000, total.getMaxMicros() / 1000);
+        System.out.printf("Transactions: %d commits, %d rollbacks, failures by type %s%n",
+                transactions.getCommits(), transactions.getRollbacks(), transactions.getFailuresByType());
+        if (!inMemory) {
+            System.out.println("Connection pool: " + DatabaseConnection.getPool());
+        }
+    }
+
+    // Product IDs drawn with probability proportional to 1 / rank^exponent, product 1 being the hottest
+    static class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(ThreadLocalRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low + 1;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.inventory.benchmark;
+
+import com.inventory.model.Customer;
+import com.inventory.model.CustomerReturn;
+import com.inventory.model.ReturnRequest;
+import com.inventory.validation.ReturnValidator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+    private CustomerReturn customerReturn;
+    private ReturnRequest validRequest;
+    private ReturnRequest invalidRequest;
+    private int sequence;
+
+    @Setup
+    public void setup() {
+        customerReturn = new CustomerReturn(42, 7, "Arrived damaged", "Good");
+        validRequest = new ReturnRequest("ORD-1", "42", "7", "Arrived damaged", "damaged");
+        invalidRequest = new ReturnRequest("ORD-2", "x", "-7", " ", "broken");
+    }
+
+    @Benchmark
+    public CustomerReturn constructCustomerReturn() {
+        int id = ++sequence & 0xFFFF;
+        return new CustomerReturn(id + 1, id + 2, "Wrong size", "Good");
+    }
+
+    @Benchmark
+    public CustomerReturn validateCondition() {
+        customerReturn.setCondition((++sequence & 1) == 0 ? "Good" : "DAMAGED");
+        return customerReturn;
+    }
+
+    @Benchmark
+    public Customer constructCustomerWithEmailValidation() {
+        return new Customer(++sequence & 0xFFFF | 1, "Jane Doe", "jane.doe+returns@example.com", "555-0100");
+    }
+
+    @Benchmark
+    public List<String> validateValidRequest() {
+        return ReturnValidator.validate(validRequest);
+    }
+
+    @Benchmark
+    public List<String> validateInvalidRequest() {
+        return ReturnValidator.validate(invalidRequest);
+    }
+
+    @Benchmark
+    public String generateReturnReport() {
+        return customerReturn.generateReturnReport();
+    }
+}
@@ -0,0 +1,73 @@
+package com.inventory.benchmark;
+
+import com.inventory.model.ReturnOutcome;
+import com.inventory.model.ReturnRequest;
+import com.inventory.service.ReturnService;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// End-to-end ReturnService calls against the embedded database stand-in. Each call fails the run on an error
+// rather than timing the error path.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+    @Param({ "1000" })
+    public int customers;
+
+    @Param({ "500" })
+    public int products;
+
+    private ReturnService returnService;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        EmbeddedDatabase.start(customers, products);
+        returnService = new ReturnService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EmbeddedDatabase.stop();
+    }
+
+    @Benchmark
+    public ReturnOutcome processReturn() {
+        int n = ++sequence;
+        String customerId = Integer.toString(n % customers + 1);
+        String productId = Integer.toString(n % products + 1);
+        ReturnOutcome outcome = returnService.processReturn(new ReturnRequest("ORD-" + n, customerId, productId, "Changed mind", "Good"));
+        if (!outcome.isSuccess()) {
+            throw new IllegalStateException("Return " + n + " failed: " + outcome.getMessage());
+        }
+        return outcome;
+    }
+
+    @Benchmark
+    public Map<String, Long> generateWeeklyReport() throws SQLException {
+        return returnService.reportCounts(2);
+    }
+
+    @Benchmark
+    public Map<String, Long> generateMonthlyReport() throws SQLException {
+        return returnService.reportCounts(3);
+    }
+}
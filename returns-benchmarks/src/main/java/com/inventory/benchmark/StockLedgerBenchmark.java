@@ -0,0 +1,69 @@
+package com.inventory.benchmark;
+
+import com.inventory.service.StockLedger;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class StockLedgerBenchmark {
+    @Param({"100000"})
+    private int products;
+
+    private StockLedger ledger;
+
+    @Setup
+    public void setup() {
+        ledger = new StockLedger(products);
+        for (int id = 1; id <= products; id++) {
+            ledger.set(id, 1000);
+        }
+    }
+
+    private int randomProduct() {
+        return ThreadLocalRandom.current().nextInt(products) + 1;
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(3)
+    public int readStock() {
+        return ledger.getStock(randomProduct());
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public int returnStock() {
+        return ledger.increment(randomProduct(), 1);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public boolean takeHotProduct() {
+        int id = ThreadLocalRandom.current().nextInt(8) + 1;
+        if (ledger.tryDecrement(id, 1)) {
+            return true;
+        }
+        ledger.increment(id, 100);
+        return false;
+    }
+}